@@ -0,0 +1,267 @@
+package clock;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.TextStyle;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * AlarmRule
+ * When a repeating alarm rings: a local time of day in a fixed zone, on
+ * every day, on a set of weekdays, or on a day of the month (clamped to the
+ * month's length, so 31 means the last day), minus exception dates. The next
+ * occurrence is computed directly from the calendar, not by stepping through
+ * time, and comes back as an absolute instant for AlarmStore to sleep until.
+ * A time that falls in a DST gap rings shifted forward by the length of the
+ * gap (02:30 becomes 03:30); a time that occurs twice in an overlap rings
+ * once, at the earlier offset. Immutable.
+ */
+final class AlarmRule {
+    enum Kind {DAILY, WEEKLY, MONTHLY}
+
+    private static final int ALL_DAYS = 0x7F;
+    private static final int WEEKDAYS = 0x1F;
+    private static final int WEEKENDS = 0x60;
+
+    final Kind kind;
+    final LocalTime time;
+    final ZoneId zone;
+    // Bit n set for DayOfWeek.of(n + 1); WEEKLY only
+    private final int dayMask;
+    // 1..31; MONTHLY only
+    private final int dayOfMonth;
+    private final NavigableSet<LocalDate> exceptions;
+
+    private AlarmRule(Kind kind, LocalTime time, ZoneId zone, int dayMask, int dayOfMonth,
+                      NavigableSet<LocalDate> exceptions) {
+        this.kind = kind;
+        this.time = time.withSecond(0).withNano(0);
+        this.zone = zone;
+        this.dayMask = dayMask;
+        this.dayOfMonth = dayOfMonth;
+        this.exceptions = Collections.unmodifiableNavigableSet(exceptions);
+    }
+
+    static AlarmRule daily(LocalTime time, ZoneId zone) {
+        return new AlarmRule(Kind.DAILY, time, zone, ALL_DAYS, 0, new TreeSet<>());
+    }
+
+    static AlarmRule weekly(LocalTime time, ZoneId zone, DayOfWeek... days) {
+        int mask = 0;
+        for (DayOfWeek d : days) mask |= 1 << (d.getValue() - 1);
+        if (mask == 0) throw new IllegalArgumentException("no days given");
+        return new AlarmRule(Kind.WEEKLY, time, zone, mask, 0, new TreeSet<>());
+    }
+
+    static AlarmRule monthly(LocalTime time, ZoneId zone, int dayOfMonth) {
+        if (dayOfMonth < 1 || dayOfMonth > 31) throw new IllegalArgumentException("day of month must be 1-31");
+        return new AlarmRule(Kind.MONTHLY, time, zone, 0, dayOfMonth, new TreeSet<>());
+    }
+
+    /**
+     * Parses a repeat as typed by the user: daily, weekdays, weekends,
+     * weekly:MON,WED,FRI or monthly:15.
+     */
+    static AlarmRule parse(String repeat, LocalTime time, ZoneId zone) {
+        String s = repeat.trim().toLowerCase(Locale.ROOT);
+        int colon = s.indexOf(':');
+        String kind = colon < 0 ? s : s.substring(0, colon);
+        String arg = colon < 0 ? "" : s.substring(colon + 1).trim();
+        switch (kind) {
+            case "daily":
+                return daily(time, zone);
+            case "weekdays":
+                return new AlarmRule(Kind.WEEKLY, time, zone, WEEKDAYS, 0, new TreeSet<>());
+            case "weekends":
+                return new AlarmRule(Kind.WEEKLY, time, zone, WEEKENDS, 0, new TreeSet<>());
+            case "weekly":
+                return new AlarmRule(Kind.WEEKLY, time, zone, parseDays(arg), 0, new TreeSet<>());
+            case "monthly":
+                try {
+                    return monthly(time, zone, Integer.parseInt(arg));
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("usage: monthly:<day of month>");
+                }
+            default:
+                throw new IllegalArgumentException("repeat must be daily, weekdays, weekends, weekly:MON,... or monthly:<day>");
+        }
+    }
+
+    /** The same rule, skipping the given date. */
+    AlarmRule except(LocalDate date) {
+        TreeSet<LocalDate> skip = new TreeSet<>(exceptions);
+        skip.add(date);
+        return new AlarmRule(kind, time, zone, dayMask, dayOfMonth, skip);
+    }
+
+    /** The same rule without exception dates before the given one; this rule if there are none. */
+    AlarmRule withoutExceptionsBefore(LocalDate date) {
+        if (exceptions.isEmpty() || !exceptions.first().isBefore(date)) return this;
+        return new AlarmRule(kind, time, zone, dayMask, dayOfMonth, new TreeSet<>(exceptions.tailSet(date, true)));
+    }
+
+    NavigableSet<LocalDate> exceptions() {
+        return exceptions;
+    }
+
+    /**
+     * The first occurrence strictly after the given instant. Constant work
+     * per call apart from stepping over exception dates.
+     */
+    ZonedDateTime nextAfter(Instant after) {
+        LocalDate date = after.atZone(zone).toLocalDate();
+        while (true) {
+            date = firstOnOrAfter(date);
+            if (!exceptions.contains(date)) {
+                // ofLocal shifts a gap time forward and, with no preferred offset, takes the earlier one in an overlap
+                ZonedDateTime at = ZonedDateTime.ofLocal(date.atTime(time), zone, null);
+                // Only the first candidate can be on or before 'after'; the next day's cannot
+                if (at.toInstant().isAfter(after)) return at;
+            }
+            date = date.plusDays(1);
+        }
+    }
+
+    // First date on or after d that the kind allows, ignoring exceptions
+    private LocalDate firstOnOrAfter(LocalDate d) {
+        switch (kind) {
+            case WEEKLY: {
+                int i = d.getDayOfWeek().getValue() - 1;
+                int rotated = ((dayMask >>> i) | (dayMask << (7 - i))) & ALL_DAYS;
+                return d.plusDays(Integer.numberOfTrailingZeros(rotated));
+            }
+            case MONTHLY: {
+                int dom = Math.min(dayOfMonth, d.lengthOfMonth());
+                if (d.getDayOfMonth() <= dom) return d.withDayOfMonth(dom);
+                LocalDate next = d.withDayOfMonth(1).plusMonths(1);
+                return next.withDayOfMonth(Math.min(dayOfMonth, next.lengthOfMonth()));
+            }
+            default:
+                return d;
+        }
+    }
+
+    /** Short text for lists, e.g. "weekdays 07:30". */
+    String describe() {
+        String days;
+        switch (kind) {
+            case WEEKLY:
+                days = dayMask == WEEKDAYS ? "weekdays" : dayMask == WEEKENDS ? "weekends"
+                        : dayMask == ALL_DAYS ? "daily" : "every " + dayNames(TextStyle.SHORT);
+                break;
+            case MONTHLY:
+                days = "monthly on day " + dayOfMonth;
+                break;
+            default:
+                days = "daily";
+        }
+        String s = days + " " + time;
+        return exceptions.isEmpty() ? s : s + " (skipping " + exceptions.size() + ")";
+    }
+
+    // Journal form
+
+    /** E.g. "weekly=MON,WED;at=07:30;zone=Europe/Berlin;except=2026-12-25,2027-01-01". */
+    String encode() {
+        StringBuilder sb = new StringBuilder();
+        switch (kind) {
+            case WEEKLY:
+                sb.append("weekly=").append(dayNames(TextStyle.SHORT).toUpperCase(Locale.ROOT));
+                break;
+            case MONTHLY:
+                sb.append("monthly=").append(dayOfMonth);
+                break;
+            default:
+                sb.append("daily");
+        }
+        sb.append(";at=").append(time).append(";zone=").append(zone.getId());
+        if (!exceptions.isEmpty()) {
+            sb.append(";except=");
+            for (LocalDate d : exceptions) sb.append(d).append(',');
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    static AlarmRule decode(String s) {
+        String kind = null, arg = "";
+        LocalTime time = null;
+        ZoneId zone = null;
+        TreeSet<LocalDate> skip = new TreeSet<>();
+        for (String part : s.split(";")) {
+            int eq = part.indexOf('=');
+            String key = eq < 0 ? part : part.substring(0, eq);
+            String value = eq < 0 ? "" : part.substring(eq + 1);
+            switch (key) {
+                case "at":
+                    time = LocalTime.parse(value);
+                    break;
+                case "zone":
+                    zone = ZoneId.of(value);
+                    break;
+                case "except":
+                    for (String d : value.split(",")) skip.add(LocalDate.parse(d));
+                    break;
+                default:
+                    if (kind != null) throw new IllegalArgumentException("Bad alarm rule " + s);
+                    kind = key;
+                    arg = value;
+            }
+        }
+        if (kind == null || time == null || zone == null) throw new IllegalArgumentException("Bad alarm rule " + s);
+        AlarmRule r;
+        switch (kind) {
+            case "daily":
+                r = daily(time, zone);
+                break;
+            case "weekly":
+                r = new AlarmRule(Kind.WEEKLY, time, zone, parseDays(arg), 0, new TreeSet<>());
+                break;
+            case "monthly":
+                r = monthly(time, zone, Integer.parseInt(arg));
+                break;
+            default:
+                throw new IllegalArgumentException("Bad alarm rule " + s);
+        }
+        return skip.isEmpty() ? r : new AlarmRule(r.kind, r.time, r.zone, r.dayMask, r.dayOfMonth, skip);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+
+    private String dayNames(TextStyle style) {
+        StringBuilder sb = new StringBuilder();
+        for (DayOfWeek d : DayOfWeek.values()) {
+            if ((dayMask & 1 << (d.getValue() - 1)) == 0) continue;
+            if (sb.length() > 0) sb.append(',');
+            sb.append(d.getDisplayName(style, Locale.ENGLISH));
+        }
+        return sb.toString();
+    }
+
+    // "MON,wed,Friday" -> mask
+    private static int parseDays(String list) {
+        int mask = 0;
+        for (String name : list.split(",")) {
+            String n = name.trim().toUpperCase(Locale.ROOT);
+            if (n.isEmpty()) continue;
+            DayOfWeek match = null;
+            for (DayOfWeek d : DayOfWeek.values()) {
+                if (n.length() >= 3 && d.name().startsWith(n)) match = d;
+            }
+            if (match == null) throw new IllegalArgumentException("unknown day " + name.trim());
+            mask |= 1 << (match.getValue() - 1);
+        }
+        if (mask == 0) throw new IllegalArgumentException("no days given");
+        return mask;
+    }
+}
@@ -0,0 +1,181 @@
+package clock;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AlarmStore
+ * Alarms ordered by next fire time (wall-clock epoch millis). Insert, delete and
+ * fire are O(log n). Instead of polling, the store sleeps on the shared scheduler
+ * until the earliest deadline, capped so that a wall-clock jump or a system
+ * suspend is noticed within MAX_SLEEP_MILLIS and overdue alarms still fire.
+ * An alarm with an AlarmRule stays in the store after it fires, moved to the
+ * rule's next occurrence after the wake-up: one rule evaluation and one
+ * reinsert, and an alarm that was overdue rings once rather than once per
+ * missed occurrence.
+ */
+final class AlarmStore {
+    static final long MAX_SLEEP_MILLIS = 10_000;
+
+    interface Listener {
+        /**
+         * Called on a scheduler thread; lateMillis is how far past its deadline the alarm fired.
+         * A repeating alarm has already been moved to its next occurrence.
+         */
+        void alarmFired(Alarm alarm, long lateMillis);
+    }
+
+    static final class Alarm {
+        final long id;
+        final String label;
+        // Changed under the store lock while the alarm is out of the ordered set
+        private volatile long fireAtMillis;
+        private volatile AlarmRule rule;
+
+        private Alarm(long id, String label, long fireAtMillis, AlarmRule rule) {
+            this.id = id;
+            this.label = label;
+            this.fireAtMillis = fireAtMillis;
+            this.rule = rule;
+        }
+
+        long fireAtMillis() {
+            return fireAtMillis;
+        }
+
+        /** The repeat rule, or null for a one-shot alarm. */
+        AlarmRule rule() {
+            return rule;
+        }
+    }
+
+    private static final Comparator<Alarm> BY_DEADLINE =
+            Comparator.comparingLong((Alarm a) -> a.fireAtMillis).thenComparingLong(a -> a.id);
+
+    private final TreeSet<Alarm> byDeadline = new TreeSet<>(BY_DEADLINE);
+    private final Map<Long, Alarm> byId = new HashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final TickScheduler scheduler;
+    private final Listener listener;
+    private TickScheduler.Handle wakeup;
+    private long wakeupAt = Long.MAX_VALUE;
+
+    AlarmStore(TickScheduler scheduler, Listener listener) {
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    long add(long fireAtMillis, String label) {
+        return add(fireAtMillis, label, null);
+    }
+
+    /** rule may be null for a one-shot alarm; fireAtMillis is its first occurrence. */
+    long add(long fireAtMillis, String label, AlarmRule rule) {
+        Alarm a = new Alarm(nextId.getAndIncrement(), label, fireAtMillis, rule);
+        synchronized (this) {
+            byId.put(a.id, a);
+            byDeadline.add(a);
+            if (fireAtMillis < wakeupAt) rearm(System.currentTimeMillis());
+        }
+        return a.id;
+    }
+
+    synchronized boolean remove(long id) {
+        Alarm a = byId.remove(id);
+        if (a == null) return false;
+        byDeadline.remove(a);
+        if (byDeadline.isEmpty()) {
+            wakeup = TickScheduler.cancel(wakeup);
+            wakeupAt = Long.MAX_VALUE;
+        }
+        return true;
+    }
+
+    /** Replaces an alarm's rule and deadline in place; false if it is gone. */
+    synchronized boolean update(long id, AlarmRule rule, long fireAtMillis) {
+        Alarm a = byId.get(id);
+        if (a == null) return false;
+        byDeadline.remove(a);
+        a.rule = rule;
+        a.fireAtMillis = fireAtMillis;
+        byDeadline.add(a);
+        rearm(System.currentTimeMillis());
+        return true;
+    }
+
+    synchronized void clear() {
+        byId.clear();
+        byDeadline.clear();
+        wakeup = TickScheduler.cancel(wakeup);
+        wakeupAt = Long.MAX_VALUE;
+    }
+
+    synchronized int size() {
+        return byId.size();
+    }
+
+    synchronized Alarm get(long id) {
+        return byId.get(id);
+    }
+
+    /** Earliest pending deadline, or Long.MAX_VALUE when there are no alarms. */
+    synchronized long nextFireMillis() {
+        return byDeadline.isEmpty() ? Long.MAX_VALUE : byDeadline.first().fireAtMillis;
+    }
+
+    synchronized List<Alarm> snapshot() {
+        return new ArrayList<>(byDeadline);
+    }
+
+    private void onWake() {
+        List<Alarm> due = new ArrayList<>();
+        List<Long> late = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            wakeup = null;
+            wakeupAt = Long.MAX_VALUE;
+            List<Alarm> repeating = new ArrayList<>();
+            while (!byDeadline.isEmpty() && byDeadline.first().fireAtMillis <= now) {
+                Alarm a = byDeadline.pollFirst();
+                due.add(a);
+                late.add(now - a.fireAtMillis);
+                if (a.rule == null) {
+                    byId.remove(a.id);
+                } else {
+                    // Skipped dates before this occurrence can never matter again
+                    LocalDate fired = Instant.ofEpochMilli(a.fireAtMillis).atZone(a.rule.zone).toLocalDate();
+                    a.rule = a.rule.withoutExceptionsBefore(fired);
+                    ZonedDateTime next = a.rule.nextAfter(Instant.ofEpochMilli(now));
+                    a.fireAtMillis = next.toInstant().toEpochMilli();
+                    repeating.add(a);
+                }
+            }
+            // Reinserted after the loop: a next occurrence is always later than now
+            byDeadline.addAll(repeating);
+            rearm(now);
+        }
+        for (int i = 0; i < due.size(); i++) {
+            listener.alarmFired(due.get(i), late.get(i));
+        }
+    }
+
+    // Caller holds the lock
+    private void rearm(long now) {
+        wakeup = TickScheduler.cancel(wakeup);
+        wakeupAt = Long.MAX_VALUE;
+        if (byDeadline.isEmpty()) return;
+        long deadline = byDeadline.first().fireAtMillis;
+        long delay = Math.min(Math.max(0, deadline - now), MAX_SLEEP_MILLIS);
+        wakeupAt = deadline;
+        wakeup = scheduler.schedule(this::onWake, delay, TimeUnit.MILLISECONDS, LatencyMetrics.ALARM_WAKE);
+    }
+}
@@ -0,0 +1,220 @@
+package clock;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * AudioDispatcher
+ * Runs all audio work (decode, open, play, stop) on one dedicated thread with a
+ * bounded command queue, so callers on the EDT or the tick scheduler never block
+ * on audio I/O. A play request for a channel that already has one queued is
+ * dropped, which collapses bursts such as rapid stopwatch clicks.
+ * Sounds are mixed in software through one AudioMixer line; the ClipPool is only
+ * used when no output line in the mixer format can be opened. Files larger than
+ * STREAM_THRESHOLD_BYTES are streamed instead of decoded into the SoundCache,
+ * and compressed formats such as MP3 are played from the PcmTranscodeCache.
+ */
+final class AudioDispatcher {
+    enum Channel {ALARM, TIMER, CLICK, RESET}
+
+    private static final int QUEUE_CAPACITY = 32;
+    static final long STREAM_THRESHOLD_BYTES = 512 * 1024;
+
+    private final SoundCache cache;
+    private final ClipPool pool;
+    private final PcmTranscodeCache transcodes;
+    private final Consumer<String> errors;
+    private final boolean lowLatency;
+    private final ThreadPoolExecutor executor;
+    private final float[] gain = new float[Channel.values().length];
+    private volatile AudioMixer mixer;
+    private boolean mixerTried;
+    private final AtomicBoolean[] playPending = new AtomicBoolean[Channel.values().length];
+    private final String[] lastPath = new String[Channel.values().length];
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    AudioDispatcher(SoundCache cache, boolean lowLatency, Consumer<String> errors) {
+        this.cache = cache;
+        this.errors = errors;
+        this.transcodes = new PcmTranscodeCache(PcmTranscodeCache.defaultDir(), errors);
+        this.pool = new ClipPool(cache, 2);
+        this.lowLatency = lowLatency;
+        for (int i = 0; i < playPending.length; i++) playPending[i] = new AtomicBoolean();
+        Arrays.fill(gain, 1f);
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    Thread t = new Thread(r, "clock-audio");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    void play(Channel ch, String path) {
+        if (path == null || path.isEmpty()) return;
+        AtomicBoolean pending = playPending[ch.ordinal()];
+        if (!pending.compareAndSet(false, true)) {
+            coalesced.incrementAndGet();
+            return;
+        }
+        boolean queued = submit(() -> {
+            pending.set(false);
+            long opened = System.nanoTime();
+            File f = new File(path);
+            if (!f.exists()) {
+                System.err.println("Sound file not found: " + f.getAbsolutePath());
+                return;
+            }
+            try {
+                lastPath[ch.ordinal()] = path;
+                AudioMixer m = mixer();
+                if (PcmTranscodeCache.handles(f)) {
+                    playTranscoded(m, ch, f, path, opened);
+                    return;
+                }
+                if (m != null && f.length() > STREAM_THRESHOLD_BYTES && stream(m, ch, f, opened)) return;
+                SoundCache.Pcm pcm = cache.get(path);
+                if (m != null && AudioMixer.accepts(pcm)) {
+                    m.play(pcm, ch.ordinal(), gain[ch.ordinal()], opened);
+                } else {
+                    pool.play(path);
+                    LatencyMetrics.record(LatencyMetrics.AUDIO_START, System.nanoTime() - opened);
+                }
+            } catch (Exception ex) {
+                System.err.println("Audio playback failed for: " + f.getAbsolutePath());
+                ex.printStackTrace();
+                errors.accept("Cannot play " + f.getName());
+            }
+        });
+        if (!queued) pending.set(false);
+    }
+
+    void stop(Channel ch) {
+        submit(() -> {
+            AudioMixer m = mixer;
+            if (m != null) m.stop(ch.ordinal());
+            String path = lastPath[ch.ordinal()];
+            if (path != null) pool.stop(path);
+        });
+    }
+
+    void stopAll() {
+        submit(() -> {
+            AudioMixer m = mixer;
+            if (m != null) m.stopAll();
+            pool.stopAll();
+        });
+    }
+
+    /** Volume for a channel, applied per voice by the mixer (1.0 = unchanged). */
+    void setGain(Channel ch, float g) {
+        gain[ch.ordinal()] = g;
+    }
+
+    /** Decodes the configured sounds ahead of time and opens the output line. */
+    void configure(String... paths) {
+        submit(() -> {
+            boolean clips = mixer() == null;
+            for (String p : paths) {
+                if (p == null || p.isEmpty() || !new File(p).isFile()) continue;
+                if (PcmTranscodeCache.handles(new File(p))) {
+                    transcodes.warm(new File(p));
+                    continue;
+                }
+                if (clips || new File(p).length() > STREAM_THRESHOLD_BYTES) continue;
+                try {
+                    cache.get(p);
+                } catch (Exception ex) {
+                    System.err.println("Could not preload sound: " + p + " (" + ex.getMessage() + ")");
+                }
+            }
+            if (clips) pool.configure(paths);
+        });
+    }
+
+    /** Measured output latency of the mixer line in ms, or -1 when the clip fallback is in use. */
+    double outputLatencyMillis() {
+        AudioMixer m = mixer;
+        return m == null ? -1 : m.outputLatencyMillis();
+    }
+
+    long droppedCommands() {
+        return dropped.get();
+    }
+
+    long coalescedCommands() {
+        return coalesced.get();
+    }
+
+    int queuedCommands() {
+        return executor.getQueue().size();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+        transcodes.shutdown();
+        AudioMixer m = mixer;
+        if (m != null) m.close();
+        pool.close();
+    }
+
+    // Plays from the mapped transcode; on a first play, replays once the background transcode is done
+    private void playTranscoded(AudioMixer m, Channel ch, File f, String path, long opened) throws IOException {
+        ByteBuffer pcm = transcodes.get(f, () -> play(ch, path));
+        if (pcm == null) return;
+        if (m != null) {
+            m.play(pcm, ch.ordinal(), gain[ch.ordinal()], opened);
+        } else {
+            errors.accept("No audio output available for " + f.getName());
+        }
+    }
+
+    // Hands an open stream in the mixer format to the mixer; false if it cannot be converted
+    private boolean stream(AudioMixer m, Channel ch, File f, long opened) throws IOException, UnsupportedAudioFileException {
+        AudioInputStream in = SoundCache.convert(SoundCache.toPcm(AudioSystem.getAudioInputStream(f)),
+                AudioMixer.FORMAT);
+        if (!in.getFormat().matches(AudioMixer.FORMAT)) {
+            in.close();
+            return false;
+        }
+        m.stream(in, ch.ordinal(), gain[ch.ordinal()], opened);
+        return true;
+    }
+
+    // Opened on first use, on the audio thread
+    private AudioMixer mixer() {
+        if (!mixerTried) {
+            mixerTried = true;
+            try {
+                mixer = AudioMixer.open(lowLatency);
+            } catch (Exception ex) {
+                System.err.println("Software mixer unavailable, using clips: " + ex.getMessage());
+            }
+        }
+        return mixer;
+    }
+
+    // Commands that do not fit in the queue are dropped rather than blocking the caller
+    private boolean submit(Runnable command) {
+        try {
+            executor.execute(command);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            dropped.incrementAndGet();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package clock;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AudioMixer
+ * In-process software mixer: one thread sums all active voices (with per-voice
+ * gain) into a fixed-size block buffer and writes it to a single SourceDataLine
+ * that stays open for the life of the app. Voices must already be in FORMAT.
+ * When nothing is playing the thread parks instead of writing silence.
+ * Voices either play decoded PCM from memory or stream from an open
+ * AudioInputStream, or from a memory-mapped transcode, so long sounds never
+ * sit on the heap. Streams are read ahead by a separate "clock-audio-read"
+ * thread into a ring per voice, so no disk read ever runs on the mixer
+ * thread; a stream that falls behind plays silence for that block instead of
+ * stalling the line for every voice.
+ */
+final class AudioMixer {
+    /** Output format; SoundCache converts every sound to this. */
+    static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    private static final int FRAME_BYTES = 4;
+    private static final int MAX_VOICES = 16;
+    // Per streamed voice; ~370 ms of audio, filled STREAM_CHUNK_BYTES at a time
+    private static final int STREAM_AHEAD_BYTES = 64 * 1024;
+    private static final int STREAM_CHUNK_BYTES = 16 * 1024;
+
+    /** One playing sound. Fields other than stopped are owned by the mixer thread. */
+    abstract static class Voice {
+        final int tag;
+        final float gain;
+        /** nanoTime when the sound file was opened for this play. */
+        final long requestedNanos;
+        volatile boolean stopped;
+
+        Voice(int tag, float gain, long requestedNanos) {
+            this.tag = tag;
+            this.gain = gain;
+            this.requestedNanos = requestedNanos;
+        }
+
+        void stop() {
+            stopped = true;
+        }
+
+        /** Adds up to mix.length samples into mix; returns false once the voice is exhausted. */
+        abstract boolean mixInto(int[] mix);
+
+        /** Called on the mixer thread when the voice is finished, stopped or stolen. */
+        void release() {
+        }
+
+        static void add(int[] mix, byte[] d, int from, int to, float g) {
+            add(mix, 0, d, from, to, g);
+        }
+
+        static void add(int[] mix, int s, byte[] d, int from, int to, float g) {
+            for (int b = from; b + 1 < to; b += 2) {
+                mix[s++] += (int) (((short) ((d[b + 1] << 8) | (d[b] & 0xff))) * g);
+            }
+        }
+    }
+
+    private static final class PcmVoice extends Voice {
+        private final SoundCache.Pcm pcm;
+        private int position;
+
+        PcmVoice(SoundCache.Pcm pcm, int tag, float gain, long requestedNanos) {
+            super(tag, gain, requestedNanos);
+            this.pcm = pcm;
+        }
+
+        @Override
+        boolean mixInto(int[] mix) {
+            int end = Math.min(pcm.length, position + mix.length * 2);
+            add(mix, pcm.data, position, end, gain);
+            position = end;
+            return end < pcm.length;
+        }
+    }
+
+    private static final class MappedVoice extends Voice {
+        private final ByteBuffer data;
+
+        MappedVoice(ByteBuffer data, int tag, float gain, long requestedNanos) {
+            super(tag, gain, requestedNanos);
+            this.data = data;
+        }
+
+        @Override
+        boolean mixInto(int[] mix) {
+            int n = Math.min(mix.length, data.remaining() / 2);
+            for (int s = 0; s < n; s++) mix[s] += (int) (data.getShort() * gain);
+            return data.remaining() >= 2;
+        }
+    }
+
+    /**
+     * Single-producer ring: the reader thread (or the caller, before the voice
+     * is handed over) appends at written, the mixer consumes at read. Only
+     * the reader closes the stream.
+     */
+    private static final class StreamVoice extends Voice {
+        private final AudioInputStream in;
+        private final byte[] ring = new byte[STREAM_AHEAD_BYTES];
+        private volatile long written;
+        private volatile long read;
+        // End of stream or a read error; set by the reader
+        private volatile boolean eof;
+        private volatile boolean released;
+        private final Thread reader;
+
+        StreamVoice(AudioInputStream in, Thread reader, int tag, float gain, long requestedNanos) {
+            super(tag, gain, requestedNanos);
+            this.in = in;
+            this.reader = reader;
+        }
+
+        @Override
+        boolean mixInto(int[] mix) {
+            long r = read;
+            long avail = written - r;
+            // Whole frames only; on underrun the missing tail of this block stays silent
+            int n = (int) Math.min(avail, mix.length * 2L) & -FRAME_BYTES;
+            int from = (int) (r % ring.length);
+            int first = Math.min(n, ring.length - from);
+            add(mix, 0, ring, from, from + first, gain);
+            add(mix, first / 2, ring, 0, n - first, gain);
+            read = r + n;
+            LockSupport.unpark(reader);
+            // A partial frame left at the end is dropped
+            return !(eof && written - read < FRAME_BYTES);
+        }
+
+        @Override
+        void release() {
+            released = true;
+            LockSupport.unpark(reader);
+        }
+
+        // Reader side: one read into free ring space; false once nothing more will come
+        boolean fill() {
+            if (eof) return false;
+            long w = written;
+            int space = ring.length - (int) (w - read);
+            if (space == 0) return true;
+            int to = (int) (w % ring.length);
+            int len = Math.min(Math.min(space, STREAM_CHUNK_BYTES), ring.length - to);
+            try {
+                int n = in.read(ring, to, len);
+                if (n < 0) {
+                    eof = true;
+                    return false;
+                }
+                written = w + n;
+            } catch (IOException ex) {
+                System.err.println("Audio stream failed: " + ex.getMessage());
+                eof = true;
+                return false;
+            }
+            return true;
+        }
+
+        boolean hasRoom() {
+            return !eof && ring.length - (written - read) >= STREAM_CHUNK_BYTES;
+        }
+
+        void close() {
+            eof = true;
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private final SourceDataLine line;
+    private final int blockFrames;
+    private final byte[] block;
+    private final int[] mix;
+    private final Voice[] voices = new Voice[MAX_VOICES];
+    private int voiceCount;
+    private final ConcurrentLinkedQueue<Voice> incoming = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Integer> stopTags = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    // Started with the first stream
+    private Thread reader;
+    private final ConcurrentLinkedQueue<StreamVoice> newStreams = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    private volatile boolean stopAllRequested;
+    private long framesWritten;
+    private volatile double outputLatencyMillis;
+
+    private AudioMixer(SourceDataLine line, int blockFrames) {
+        this.line = line;
+        this.blockFrames = blockFrames;
+        this.block = new byte[blockFrames * FRAME_BYTES];
+        this.mix = new int[blockFrames * 2];
+        this.thread = new Thread(this::run, "clock-mixer");
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MAX_PRIORITY);
+    }
+
+    /**
+     * Opens the output line. Low-latency mode uses a ~23 ms device buffer and
+     * 128-frame blocks; the default is ~93 ms and 512 frames, which is more
+     * tolerant of scheduling hiccups.
+     */
+    static AudioMixer open(boolean lowLatency) throws LineUnavailableException {
+        int bufferFrames = lowLatency ? 1024 : 4096;
+        int blockFrames = lowLatency ? 128 : 512;
+        SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT);
+        line.open(FORMAT, bufferFrames * FRAME_BYTES);
+        line.start();
+        AudioMixer m = new AudioMixer(line, blockFrames);
+        m.thread.start();
+        return m;
+    }
+
+    static boolean accepts(SoundCache.Pcm pcm) {
+        return pcm.format.matches(FORMAT);
+    }
+
+    /** requestedNanos is when the caller opened the sound; the wait until its first block is recorded as AUDIO_START. */
+    Voice play(SoundCache.Pcm pcm, int tag, float gain, long requestedNanos) {
+        return start(new PcmVoice(pcm, tag, gain, requestedNanos));
+    }
+
+    /** Plays little-endian PCM in FORMAT from the buffer's position, e.g. a memory-mapped file. */
+    Voice play(ByteBuffer pcm, int tag, float gain, long requestedNanos) {
+        return start(new MappedVoice(pcm, tag, gain, requestedNanos));
+    }
+
+    /**
+     * Streams in (already in FORMAT) through a read-ahead ring; the reader
+     * thread closes it when done. The first chunks are read on the calling
+     * thread so the voice has data from its first block.
+     */
+    Voice stream(AudioInputStream in, int tag, float gain, long requestedNanos) {
+        StreamVoice v = new StreamVoice(in, readerThread(), tag, gain, requestedNanos);
+        while (v.hasRoom() && v.fill()) {
+            // prefill
+        }
+        newStreams.add(v);
+        LockSupport.unpark(v.reader);
+        return start(v);
+    }
+
+    private synchronized Thread readerThread() {
+        if (reader == null) {
+            reader = new Thread(this::readAhead, "clock-audio-read");
+            reader.setDaemon(true);
+            reader.start();
+        }
+        return reader;
+    }
+
+    // Reader thread: tops up every streamed voice's ring, parks when all are full
+    private void readAhead() {
+        List<StreamVoice> streams = new ArrayList<>();
+        try {
+            while (running) {
+                StreamVoice v;
+                while ((v = newStreams.poll()) != null) streams.add(v);
+                boolean progress = false;
+                for (int i = streams.size() - 1; i >= 0; i--) {
+                    StreamVoice s = streams.get(i);
+                    if (s.released) {
+                        s.close();
+                        streams.remove(i);
+                    } else if (s.hasRoom()) {
+                        s.fill();
+                        progress = true;
+                    }
+                }
+                if (!progress) LockSupport.park(this);
+            }
+        } finally {
+            for (StreamVoice s : streams) s.close();
+            StreamVoice v;
+            while ((v = newStreams.poll()) != null) v.close();
+        }
+    }
+
+    private Voice start(Voice v) {
+        incoming.add(v);
+        LockSupport.unpark(thread);
+        return v;
+    }
+
+    /** Stops every voice started with the given tag. */
+    void stop(int tag) {
+        stopTags.add(tag);
+        LockSupport.unpark(thread);
+    }
+
+    void stopAll() {
+        stopAllRequested = true;
+        LockSupport.unpark(thread);
+    }
+
+    /** Measured time between a frame being written and it leaving the device buffer. */
+    double outputLatencyMillis() {
+        return outputLatencyMillis;
+    }
+
+    /** Worst-case latency implied by the device buffer size. */
+    double bufferLatencyMillis() {
+        return line.getBufferSize() / (double) FRAME_BYTES * 1000.0 / FORMAT.getSampleRate();
+    }
+
+    int blockFrames() {
+        return blockFrames;
+    }
+
+    void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        synchronized (this) {
+            if (reader != null) LockSupport.unpark(reader);
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                admit();
+                if (voiceCount == 0) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                render();
+                line.write(block, 0, block.length);
+                framesWritten += blockFrames;
+                long inFlight = framesWritten - line.getLongFramePosition();
+                outputLatencyMillis = inFlight * 1000.0 / FORMAT.getSampleRate();
+            }
+        } finally {
+            for (int i = 0; i < voiceCount; i++) voices[i].release();
+            Voice v;
+            while ((v = incoming.poll()) != null) v.release();
+            line.stop();
+            line.close();
+        }
+    }
+
+    // Applies pending stop requests and moves new voices into the active set
+    private void admit() {
+        if (stopAllRequested) {
+            stopAllRequested = false;
+            for (int i = 0; i < voiceCount; i++) voices[i].stopped = true;
+        }
+        Integer tag;
+        while ((tag = stopTags.poll()) != null) {
+            for (int i = 0; i < voiceCount; i++) {
+                if (voices[i].tag == tag) voices[i].stopped = true;
+            }
+        }
+        Voice v;
+        while ((v = incoming.poll()) != null) {
+            if (voiceCount == MAX_VOICES) {
+                // Steal the oldest voice
+                voices[0].release();
+                System.arraycopy(voices, 1, voices, 0, MAX_VOICES - 1);
+                voiceCount--;
+            }
+            voices[voiceCount++] = v;
+            // Mixed into the very next block
+            LatencyMetrics.record(LatencyMetrics.AUDIO_START, System.nanoTime() - v.requestedNanos);
+        }
+    }
+
+    private void render() {
+        Arrays.fill(mix, 0);
+        int live = 0;
+        for (int i = 0; i < voiceCount; i++) {
+            Voice v = voices[i];
+            if (!v.stopped && v.mixInto(mix)) {
+                voices[live++] = v;
+                continue;
+            }
+            v.release();
+            voices[i] = null;
+        }
+        for (int i = live; i < voiceCount; i++) voices[i] = null;
+        voiceCount = live;
+        for (int s = 0, b = 0; s < mix.length; s++, b += 2) {
+            int x = mix[s];
+            if (x > Short.MAX_VALUE) x = Short.MAX_VALUE;
+            else if (x < Short.MIN_VALUE) x = Short.MIN_VALUE;
+            block[b] = (byte) x;
+            block[b + 1] = (byte) (x >> 8);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package clock;
+
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ClipPool
+ * Keeps a few pre-opened Clips per configured sound, loaded from the SoundCache,
+ * so playing a sound is a rewind and start instead of open + decode.
+ */
+final class ClipPool {
+    private final SoundCache cache;
+    private final int clipsPerSound;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private static final class Entry {
+        final SoundCache.Pcm pcm;
+        final Clip[] clips;
+        int next;
+
+        Entry(SoundCache.Pcm pcm, Clip[] clips) {
+            this.pcm = pcm;
+            this.clips = clips;
+        }
+
+        void close() {
+            for (Clip c : clips) c.close();
+        }
+    }
+
+    ClipPool(SoundCache cache, int clipsPerSound) {
+        this.cache = cache;
+        this.clipsPerSound = clipsPerSound;
+    }
+
+    /** Warms the given paths and closes the clips of any path no longer configured. */
+    void configure(String... paths) {
+        Set<String> keep = new HashSet<>(Arrays.asList(paths));
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> e = it.next();
+                if (!keep.contains(e.getKey())) {
+                    e.getValue().close();
+                    it.remove();
+                }
+            }
+        }
+        for (String p : keep) {
+            if (p == null || p.isEmpty() || !new File(p).isFile()) continue;
+            try {
+                warm(p);
+            } catch (Exception ex) {
+                System.err.println("Could not preload sound: " + p + " (" + ex.getMessage() + ")");
+            }
+        }
+    }
+
+    /** Plays path from the start, reusing an idle pooled clip or restarting the oldest one. */
+    void play(String path) throws IOException, UnsupportedAudioFileException, LineUnavailableException {
+        Entry e = warm(path);
+        synchronized (e) {
+            Clip clip = null;
+            for (Clip c : e.clips) {
+                if (!c.isRunning()) {
+                    clip = c;
+                    break;
+                }
+            }
+            if (clip == null) {
+                clip = e.clips[e.next];
+                e.next = (e.next + 1) % e.clips.length;
+                clip.stop();
+            }
+            clip.setFramePosition(0);
+            clip.start();
+        }
+    }
+
+    synchronized void stop(String path) {
+        Entry e = entries.get(path);
+        if (e != null) {
+            for (Clip c : e.clips) c.stop();
+        }
+    }
+
+    synchronized void stopAll() {
+        for (Entry e : entries.values()) {
+            for (Clip c : e.clips) c.stop();
+        }
+    }
+
+    synchronized void close() {
+        for (Entry e : entries.values()) e.close();
+        entries.clear();
+    }
+
+    // Returns the pooled clips for path, (re)opening them if missing or the file changed
+    private Entry warm(String path) throws IOException, UnsupportedAudioFileException, LineUnavailableException {
+        synchronized (this) {
+            Entry e = entries.get(path);
+            if (e != null && cache.isFresh(e.pcm)) return e;
+        }
+        SoundCache.Pcm pcm = cache.get(path);
+        Clip[] clips = new Clip[clipsPerSound];
+        try {
+            for (int i = 0; i < clips.length; i++) {
+                clips[i] = AudioSystem.getClip();
+                clips[i].open(pcm.format, pcm.data, 0, pcm.length);
+            }
+        } catch (LineUnavailableException | RuntimeException ex) {
+            for (Clip c : clips) if (c != null) c.close();
+            throw ex;
+        }
+        Entry fresh = new Entry(pcm, clips);
+        synchronized (this) {
+            Entry old = entries.put(path, fresh);
+            if (old != null) old.close();
+        }
+        return fresh;
+    }
+}
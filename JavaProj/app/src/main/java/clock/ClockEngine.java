@@ -0,0 +1,597 @@
+package clock;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.prefs.Preferences;
+
+/**
+ * ClockEngine
+ * The timing core without any UI: the shared tick scheduler, alarms,
+ * countdowns, the stopwatch with its laps and session history, and sound
+ * dispatch. Alarms, countdowns and the stopwatch survive restarts through
+ * a StateJournal once restoreState() has run. Nothing here touches AWT, so
+ * it runs headless. Front ends drive
+ * it through its methods and follow it through Listener callbacks, which
+ * arrive on engine threads; a UI must hop to its own thread itself.
+ */
+final class ClockEngine {
+    /** Every callback has a no-op default so subscribers override only what they show. */
+    interface Listener {
+        default void alarmFired(AlarmStore.Alarm alarm, long lateMillis) {
+        }
+
+        default void timerStarted(CountdownTimers.Countdown countdown) {
+        }
+
+        /** Once per countdown progress frame. */
+        default void timersTicked() {
+        }
+
+        default void timerFinished(CountdownTimers.Countdown countdown) {
+        }
+
+        default void timerPaused(CountdownTimers.Countdown countdown) {
+        }
+
+        default void timerResumed(CountdownTimers.Countdown countdown) {
+        }
+
+        default void timerCancelled(CountdownTimers.Countdown countdown) {
+        }
+
+        /** After start, pause or reset; a reset snapshot has no time and no laps. */
+        default void stopwatchChanged(StopwatchCore.Snapshot snapshot) {
+        }
+
+        default void lapRecorded(int index, long splitNanos, long totalNanos) {
+        }
+
+        /** Something the user should be told, e.g. an unplayable sound file. */
+        default void message(String text) {
+        }
+    }
+
+    // Preferences keys; the node is shared with earlier versions of the app
+    static final String PREF_ALARM = "alarmSound";
+    static final String PREF_TIMER = "timerSound";
+    static final String PREF_STOPWATCH_CLICK = "stopwatchClick";
+    static final String PREF_STOPWATCH_RESET = "stopwatchReset";
+
+    static final long SOUND_WARMUP_DELAY_MILLIS = 1500;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final TickScheduler scheduler = new TickScheduler(2);
+    private final AlarmStore alarms = new AlarmStore(scheduler, this::onAlarmFired);
+    // Held across an alarm change and its journal record, so when an alarm fires while it is
+    // being added or removed the records land in the journal in the same order. Not the store's
+    // own lock: compaction reads the store while holding the journal's.
+    private final Object alarmJournalLock = new Object();
+    private final CountdownTimers countdowns = new CountdownTimers(scheduler, new CountdownTimers.Listener() {
+        @Override
+        public void timersTicked() {
+            for (Listener l : listeners) l.timersTicked();
+        }
+
+        @Override
+        public void timerFinished(CountdownTimers.Countdown countdown) {
+            onTimerFinished(countdown);
+        }
+    });
+    private final StopwatchCore stopwatch = new StopwatchCore();
+    private final LapStore laps = new LapStore();
+    // Held across a stopwatch change, its laps, journal record and session entry, so concurrent
+    // callers (the UI, the control API) cannot interleave a lap with another lap or a reset.
+    // Like alarmJournalLock it is never taken while holding the journal's lock.
+    private final Object stopwatchLock = new Object();
+    // Created on first use so javax.sound stays off the startup path
+    private volatile AudioDispatcher audio;
+    // The node the app used while its classes lived in the unnamed package
+    private final Preferences prefs = Preferences.userRoot().node("/<unnamed>");
+
+    // Sound per channel (defaults)
+    private volatile String alarmSoundPath = "sounds/alarm.wav";
+    private volatile String timerSoundPath = "sounds/timer_finish.wav";
+    private volatile String stopwatchClickPath = "sounds/click.wav";
+    private volatile String stopwatchResetPath = "sounds/reset.wav";
+
+    // Session history, opened on first use; appends, flushes and history reads run on
+    // their own thread so a slow disk or a long export never holds up the tick scheduler
+    private SessionLog sessionLog;
+    private final ExecutorService sessionIo = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "clock-session-io");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ConcurrentLinkedQueue<SessionWrite> sessionWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean sessionFlushPending = new AtomicBoolean();
+    private volatile long sessionStartMillis;
+
+    // Write-ahead journal of alarms, countdowns and the stopwatch; null until restored or if unavailable
+    private volatile StateJournal journal;
+    // Changes made while restoreState runs; written once the journal holds the restored ids
+    private final List<Consumer<StateJournal>> journalBacklog = new ArrayList<>();
+    private boolean restoring;
+
+    // Decoded sounds mixed onto one output line, driven from the audio thread
+    private AudioDispatcher audio() {
+        AudioDispatcher a = audio;
+        if (a == null) {
+            synchronized (this) {
+                a = audio;
+                if (a == null) {
+                    audio = a = new AudioDispatcher(new SoundCache(32L * 1024 * 1024, AudioMixer.FORMAT),
+                            Boolean.getBoolean("clock.audio.lowLatency"), this::message);
+                }
+            }
+        }
+        return a;
+    }
+
+    void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    TickScheduler scheduler() {
+        return scheduler;
+    }
+
+    void shutdown() {
+        AudioDispatcher a = audio;
+        if (a != null) a.shutdown();
+        StateJournal j = journal;
+        if (j != null) {
+            try {
+                j.close();
+            } catch (IOException ex) {
+                System.err.println("Could not close state journal: " + ex.getMessage());
+            }
+        }
+        scheduler.shutdown();
+    }
+
+    // Alarms
+    AlarmStore alarms() {
+        return alarms;
+    }
+
+    /** Schedules a one-shot alarm at the next occurrence of the given local time; returns that moment. */
+    ZonedDateTime addOneShotAlarm(LocalTime time, String label) {
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime next = now.with(time).truncatedTo(ChronoUnit.MINUTES);
+        if (!next.isAfter(now)) next = next.plusDays(1);
+        long fireAt = next.toInstant().toEpochMilli();
+        synchronized (alarmJournalLock) {
+            long id = alarms.add(fireAt, label);
+            journal(j -> j.alarmSet(id, fireAt, label, null));
+        }
+        return next;
+    }
+
+    /** Schedules a repeating alarm; returns its first occurrence. */
+    ZonedDateTime addAlarm(AlarmRule rule, String label) {
+        ZonedDateTime next = rule.nextAfter(Instant.now());
+        long fireAt = next.toInstant().toEpochMilli();
+        String encoded = rule.encode();
+        synchronized (alarmJournalLock) {
+            long id = alarms.add(fireAt, label, rule);
+            journal(j -> j.alarmSet(id, fireAt, label, encoded));
+        }
+        return next;
+    }
+
+    /**
+     * Makes a repeating alarm skip the given date; returns its next occurrence,
+     * or null if there is no such repeating alarm.
+     */
+    ZonedDateTime skipAlarm(long id, LocalDate date) {
+        synchronized (alarmJournalLock) {
+            AlarmStore.Alarm a = alarms.get(id);
+            if (a == null || a.rule() == null) return null;
+            AlarmRule rule = a.rule().except(date);
+            ZonedDateTime next = rule.nextAfter(Instant.now());
+            long fireAt = next.toInstant().toEpochMilli();
+            alarms.update(id, rule, fireAt);
+            journal(j -> j.alarmSet(id, fireAt, a.label, rule.encode()));
+            return next;
+        }
+    }
+
+    boolean removeAlarm(long id) {
+        synchronized (alarmJournalLock) {
+            if (!alarms.remove(id)) return false;
+            journal(j -> j.alarmCleared(id));
+            return true;
+        }
+    }
+
+    private void onAlarmFired(AlarmStore.Alarm alarm, long lateMillis) {
+        synchronized (alarmJournalLock) {
+            AlarmRule rule = alarm.rule();
+            if (rule != null && alarms.get(alarm.id) == alarm) {
+                long fireAt = alarm.fireAtMillis();
+                journal(j -> j.alarmSet(alarm.id, fireAt, alarm.label, rule.encode()));
+            } else {
+                journal(j -> j.alarmCleared(alarm.id));
+            }
+        }
+        audio().play(AudioDispatcher.Channel.ALARM, alarmSoundPath);
+        for (Listener l : listeners) l.alarmFired(alarm, lateMillis);
+    }
+
+    // Countdowns
+    CountdownTimers countdowns() {
+        return countdowns;
+    }
+
+    CountdownTimers.Countdown startTimer(String name, long duration, TimeUnit unit) {
+        CountdownTimers.Countdown c = countdowns.start(name, duration, unit);
+        journal(j -> j.timerSet(timerRecord(c)));
+        for (Listener l : listeners) l.timerStarted(c);
+        return c;
+    }
+
+    boolean pauseTimer(long id) {
+        CountdownTimers.Countdown c = countdowns.get(id);
+        if (c == null || !countdowns.pause(id)) return false;
+        journal(j -> j.timerSet(timerRecord(c)));
+        for (Listener l : listeners) l.timerPaused(c);
+        return true;
+    }
+
+    boolean resumeTimer(long id) {
+        CountdownTimers.Countdown c = countdowns.get(id);
+        if (c == null || !countdowns.resume(id)) return false;
+        journal(j -> j.timerSet(timerRecord(c)));
+        for (Listener l : listeners) l.timerResumed(c);
+        return true;
+    }
+
+    boolean cancelTimer(long id) {
+        CountdownTimers.Countdown c = countdowns.get(id);
+        if (c == null || !countdowns.cancel(id)) return false;
+        journal(j -> j.timerCleared(id));
+        for (Listener l : listeners) l.timerCancelled(c);
+        return true;
+    }
+
+    private StateJournal.TimerRecord timerRecord(CountdownTimers.Countdown c) {
+        long remaining = c.remainingNanos(countdowns.now());
+        long deadlineMillis = System.currentTimeMillis() + remaining / 1_000_000;
+        return new StateJournal.TimerRecord(c.id, c.name, c.durationNanos, deadlineMillis,
+                c.isPaused() ? remaining : -1);
+    }
+
+    private void onTimerFinished(CountdownTimers.Countdown countdown) {
+        journal(j -> j.timerCleared(countdown.id));
+        audio().play(AudioDispatcher.Channel.TIMER, timerSoundPath);
+        for (Listener l : listeners) l.timerFinished(countdown);
+    }
+
+    // Stopwatch: start resumes after a pause; only reset clears the time
+    StopwatchCore stopwatch() {
+        return stopwatch;
+    }
+
+    LapStore laps() {
+        return laps;
+    }
+
+    boolean startStopwatch() {
+        synchronized (stopwatchLock) {
+            boolean fresh = stopwatch.snapshot().accumulated == 0;
+            if (!stopwatch.start()) return false;
+            if (fresh) sessionStartMillis = System.currentTimeMillis();
+            stopwatchChanged();
+        }
+        audio().play(AudioDispatcher.Channel.CLICK, stopwatchClickPath);
+        return true;
+    }
+
+    boolean pauseStopwatch() {
+        synchronized (stopwatchLock) {
+            if (!stopwatch.pause()) return false;
+            stopwatchChanged();
+        }
+        audio().play(AudioDispatcher.Channel.CLICK, stopwatchClickPath);
+        return true;
+    }
+
+    /** Records a lap; returns the elapsed time at the lap, or -1 if not running. */
+    long lapStopwatch() {
+        synchronized (stopwatchLock) {
+            long elapsed = stopwatch.lap();
+            if (elapsed < 0) return -1;
+            int i = laps.add(elapsed);
+            journal(j -> j.lap(i, elapsed));
+            long split = laps.split(i), now = System.currentTimeMillis(), session = sessionStartMillis;
+            recordSession(log -> log.appendLap(now, session, i + 1, split, elapsed), false);
+            for (Listener l : listeners) l.lapRecorded(i, split, elapsed);
+            return elapsed;
+        }
+    }
+
+    void resetStopwatch() {
+        synchronized (stopwatchLock) {
+            long total = stopwatch.elapsedNanos();
+            if (total > 0) {
+                long now = System.currentTimeMillis(), session = sessionStartMillis;
+                int count = laps.size();
+                recordSession(log -> log.appendSessionEnd(now, session, count, total), true);
+            }
+            stopwatch.reset();
+            laps.clear();
+            stopwatchChanged();
+        }
+        audio().play(AudioDispatcher.Channel.RESET, stopwatchResetPath);
+    }
+
+    // Caller holds stopwatchLock
+    private void stopwatchChanged() {
+        StopwatchCore.Snapshot s = stopwatch.snapshot();
+        journal(j -> j.stopwatch(stopwatchRecord(s)));
+        for (Listener l : listeners) l.stopwatchChanged(s);
+    }
+
+    private StateJournal.StopwatchRecord stopwatchRecord(StopwatchCore.Snapshot s) {
+        return new StateJournal.StopwatchRecord(s.running, System.currentTimeMillis(),
+                s.elapsedNanos(System.nanoTime()));
+    }
+
+    // Persistent state
+
+    /**
+     * Opens the state journal and brings back the alarms, countdowns and
+     * stopwatch of the previous run; countdowns that ran out while the app
+     * was down finish right away, overdue alarms fire late. Call once, after
+     * the front end has subscribed, so it sees what was restored.
+     */
+    void restoreState() {
+        StateJournal j;
+        try {
+            j = StateJournal.open(stateDir());
+        } catch (IOException ex) {
+            System.err.println("Could not open state journal, alarms and timers will not persist: " + ex.getMessage());
+            ex.printStackTrace();
+            return;
+        }
+        StateJournal.State state = j.recovered();
+        long nowMillis = System.currentTimeMillis();
+        // Restored alarms and countdowns can fire, finish or be cancelled before the journal
+        // is live; those changes wait in the backlog instead of being lost
+        synchronized (journalBacklog) {
+            restoring = true;
+        }
+
+        if (state.stopwatch != null && state.stopwatch.elapsedNanos > 0) {
+            synchronized (stopwatchLock) {
+                long elapsed = state.stopwatch.elapsedNanosAt(nowMillis);
+                for (int i = 0; i < state.lapCount; i++) {
+                    int index = laps.add(state.laps[i]);
+                    long split = laps.split(index), total = state.laps[i];
+                    for (Listener l : listeners) l.lapRecorded(index, split, total);
+                }
+                stopwatch.restore(state.stopwatch.running, elapsed, state.lapCount,
+                        state.lapCount == 0 ? 0 : state.laps[state.lapCount - 1]);
+                sessionStartMillis = nowMillis - elapsed / 1_000_000;
+                StopwatchCore.Snapshot s = stopwatch.snapshot();
+                for (Listener l : listeners) l.stopwatchChanged(s);
+            }
+        }
+        for (StateJournal.TimerRecord t : state.timers.values()) {
+            boolean paused = t.pausedRemainingNanos >= 0;
+            long remaining = paused ? t.pausedRemainingNanos : (t.deadlineMillis - nowMillis) * 1_000_000;
+            // Expired while down: restored with 1 ns left so it finishes through the normal path,
+            // held paused until subscribers have seen it start
+            boolean expired = !paused && remaining <= 0;
+            CountdownTimers.Countdown c = countdowns.restore(t.name, t.durationNanos, remaining, paused || expired);
+            for (Listener l : listeners) l.timerStarted(c);
+            if (expired) countdowns.resume(c.id);
+        }
+        for (StateJournal.AlarmRecord a : state.alarms.values()) {
+            AlarmRule rule = null;
+            if (a.rule != null) {
+                try {
+                    rule = AlarmRule.decode(a.rule);
+                } catch (RuntimeException ex) {
+                    // e.g. a zone id this JDK does not know; ring once at the recorded time
+                    System.err.println("Could not restore repeat of alarm '" + a.label + "': " + ex.getMessage());
+                }
+            }
+            alarms.add(a.fireAtMillis, a.label, rule);
+        }
+
+        // Ids changed on restore, so start the journal over from the live state, then
+        // replay what happened meanwhile; records are absolute, so one the snapshot
+        // already reflects is harmless
+        boolean compacted;
+        try {
+            j.compact(this::captureState);
+            compacted = true;
+        } catch (IOException ex) {
+            System.err.println("Could not compact state journal, alarms and timers will not persist: " + ex.getMessage());
+            ex.printStackTrace();
+            compacted = false;
+        }
+        synchronized (journalBacklog) {
+            restoring = false;
+            // Without the compaction the file still has the old ids; writing new ones next to them would mix the two
+            if (compacted) {
+                for (Consumer<StateJournal> w : journalBacklog) w.accept(j);
+                journal = j;
+            }
+            journalBacklog.clear();
+        }
+        if (!compacted) {
+            try {
+                j.close();
+            } catch (IOException ignored) {
+            }
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                j.sync();
+            } catch (IOException ex) {
+                System.err.println("Could not sync state journal: " + ex.getMessage());
+            }
+        }, "clock-journal-sync"));
+    }
+
+    static Path stateDir() {
+        String dir = System.getProperty("clock.state.dir");
+        return dir != null ? Path.of(dir) : StateJournal.defaultDir();
+    }
+
+    private void journal(Consumer<StateJournal> write) {
+        StateJournal live = journal;
+        if (live == null) {
+            synchronized (journalBacklog) {
+                live = journal;
+                if (live == null) {
+                    if (restoring) journalBacklog.add(write);
+                    return;
+                }
+            }
+        }
+        write.accept(live);
+        // Off the tick scheduler: compaction writes and fsyncs a snapshot
+        if (live.needsCompaction()) live.compactLater(this::captureState);
+    }
+
+    private StateJournal.State captureState() {
+        StateJournal.State state = new StateJournal.State();
+        for (AlarmStore.Alarm a : alarms.snapshot()) {
+            AlarmRule rule = a.rule();
+            state.alarms.put(a.id, new StateJournal.AlarmRecord(a.id, a.fireAtMillis(), a.label,
+                    rule == null ? null : rule.encode()));
+        }
+        for (CountdownTimers.Countdown c : countdowns.snapshot()) state.timers.put(c.id, timerRecord(c));
+        state.stopwatch = stopwatchRecord(stopwatch.snapshot());
+        // Runs under the journal's lock, so not stopwatchLock; the store's own lock keeps a reset
+        // from shrinking the laps mid-copy
+        synchronized (laps) {
+            int n = laps.size();
+            for (int i = 0; i < n; i++) state.lap(i, laps.mark(i));
+        }
+        return state;
+    }
+
+    // Session history: appends run on the session I/O thread; laps are flushed in
+    // batches a couple of seconds apart, a finished session immediately
+    private interface SessionWrite {
+        void write(SessionLog log) throws IOException;
+    }
+
+    // Writes queue up in call order and one thread drains them, so they cannot be reordered in the log
+    private void recordSession(SessionWrite write, boolean flushNow) {
+        sessionWrites.add(write);
+        sessionIo.execute(() -> drainSessionWrites(flushNow));
+    }
+
+    private void drainSessionWrites(boolean flushNow) {
+        try {
+            SessionLog log = sessionLog();
+            for (SessionWrite w; (w = sessionWrites.poll()) != null; ) w.write(log);
+            if (flushNow) log.flush();
+            else if (sessionFlushPending.compareAndSet(false, true)) {
+                // Only the delay is on the scheduler
+                scheduler.schedule(() -> sessionIo.execute(() -> {
+                    sessionFlushPending.set(false);
+                    log.flush();
+                }), 2, TimeUnit.SECONDS);
+            }
+        } catch (IOException ex) {
+            sessionWrites.clear();
+            System.err.println("Could not record stopwatch session: " + ex.getMessage());
+        }
+    }
+
+    /** The thread all SessionLog work should run on, including history reads and exports. */
+    Executor sessionIo() {
+        return sessionIo;
+    }
+
+    synchronized SessionLog sessionLog() throws IOException {
+        if (sessionLog == null) {
+            SessionLog log = SessionLog.open(SessionLog.defaultPath());
+            // Publish pending laps on exit, however the process ends
+            Runtime.getRuntime().addShutdownHook(new Thread(log::flush, "clock-session-flush"));
+            sessionLog = log;
+        }
+        return sessionLog;
+    }
+
+    // Sounds
+    String sound(AudioDispatcher.Channel channel) {
+        switch (channel) {
+            case ALARM:
+                return alarmSoundPath;
+            case TIMER:
+                return timerSoundPath;
+            case CLICK:
+                return stopwatchClickPath;
+            default:
+                return stopwatchResetPath;
+        }
+    }
+
+    /** Sets and persists the sound for a channel, then warms it. */
+    void setSound(AudioDispatcher.Channel channel, String path) {
+        switch (channel) {
+            case ALARM:
+                alarmSoundPath = path;
+                prefs.put(PREF_ALARM, path);
+                break;
+            case TIMER:
+                timerSoundPath = path;
+                prefs.put(PREF_TIMER, path);
+                break;
+            case CLICK:
+                stopwatchClickPath = path;
+                prefs.put(PREF_STOPWATCH_CLICK, path);
+                break;
+            default:
+                stopwatchResetPath = path;
+                prefs.put(PREF_STOPWATCH_RESET, path);
+                break;
+        }
+        warmSounds();
+    }
+
+    void loadSavedSounds() {
+        alarmSoundPath = prefs.get(PREF_ALARM, alarmSoundPath);
+        timerSoundPath = prefs.get(PREF_TIMER, timerSoundPath);
+        stopwatchClickPath = prefs.get(PREF_STOPWATCH_CLICK, stopwatchClickPath);
+        stopwatchResetPath = prefs.get(PREF_STOPWATCH_RESET, stopwatchResetPath);
+        // Decoding and opening the output can wait until the first frame is up
+        scheduler.schedule(this::warmSounds, SOUND_WARMUP_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Decode the four configured sounds and open their clips on the audio thread
+    private void warmSounds() {
+        audio().configure(alarmSoundPath, timerSoundPath, stopwatchClickPath, stopwatchResetPath);
+    }
+
+    private void message(String text) {
+        for (Listener l : listeners) l.message(text);
+    }
+}
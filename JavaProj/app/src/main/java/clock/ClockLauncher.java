@@ -0,0 +1,249 @@
+package clock;
+
+import javax.swing.SwingUtilities;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClockLauncher
+ * Entry point. Starts the Swing UI by default; with --headless only the
+ * ClockEngine runs, driven by line commands on stdin and reporting events on
+ * stdout, without ever loading AWT. --control-port n (or -Dclock.control.port)
+ * also serves the ControlServer HTTP API on 127.0.0.1 in either mode.
+ */
+public final class ClockLauncher {
+    private static final DateTimeFormatter ALARM_FMT = DateTimeFormatter.ofPattern("hh:mm a", Locale.ENGLISH);
+
+    private static final String HELP = String.join("\n",
+            "alarm <hh:mm AM|PM> [label]   set an alarm at the next occurrence",
+            "repeat <hh:mm AM|PM> <rule> [label]",
+            "                              repeating alarm; rule is daily, weekdays, weekends,",
+            "                              weekly:MON,FRI or monthly:15",
+            "skip <id> <yyyy-mm-dd>        skip one day of a repeating alarm",
+            "alarms                        list pending alarms",
+            "unalarm <id>                  remove an alarm",
+            "timer <seconds> [name]        start a countdown",
+            "timers                        list countdowns",
+            "pause|resume|cancel <id>      control a countdown",
+            "sw start|stop|lap|reset|show  stopwatch",
+            "metrics                       latency histograms (with -Dclock.metrics=true)",
+            "quit");
+
+    private ClockLauncher() {
+    }
+
+    public static void main(String[] args) {
+        boolean headless = false;
+        int controlPort = Integer.getInteger("clock.control.port", -1);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--headless")) headless = true;
+            else if (args[i].equals("--control-port") && i + 1 < args.length) controlPort = Integer.parseInt(args[++i]);
+        }
+        if (headless) {
+            System.setProperty("java.awt.headless", "true");
+            runHeadless(controlPort);
+        } else {
+            ClockEngine engine = new ClockEngine();
+            LatencyMetrics.start(engine.scheduler());
+            startControl(engine, controlPort);
+            SwingUtilities.invokeLater(() -> {
+                new ElegantMinimalClockDark(engine);
+                // After the frame subscribed, and off the EDT
+                engine.scheduler().schedule(engine::restoreState, 0, TimeUnit.MILLISECONDS);
+            });
+        }
+    }
+
+    // Off unless a port was asked for; a failure to bind leaves the app running without it
+    private static ControlServer startControl(ClockEngine engine, int port) {
+        if (port < 0) return null;
+        try {
+            ControlServer server = ControlServer.start(engine, port);
+            System.out.println("control API on http://127.0.0.1:" + server.port() + "/");
+            return server;
+        } catch (IOException ex) {
+            System.err.println("Control API failed to start on port " + port + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private static void runHeadless(int controlPort) {
+        ClockEngine engine = new ClockEngine();
+        PrintStream out = System.out;
+        engine.addListener(new ClockEngine.Listener() {
+            @Override
+            public void alarmFired(AlarmStore.Alarm alarm, long lateMillis) {
+                out.println("alarm " + alarm.id + " fired: " + alarm.label + " (" + lateMillis + " ms late)");
+            }
+
+            @Override
+            public void timerStarted(CountdownTimers.Countdown countdown) {
+                out.println("timer " + countdown.id + " started: " + countdown.name);
+            }
+
+            @Override
+            public void timerFinished(CountdownTimers.Countdown countdown) {
+                out.println("timer " + countdown.id + " finished: " + countdown.name);
+            }
+
+            @Override
+            public void timerPaused(CountdownTimers.Countdown countdown) {
+                out.println("timer " + countdown.id + " paused: " + countdown.name);
+            }
+
+            @Override
+            public void timerResumed(CountdownTimers.Countdown countdown) {
+                out.println("timer " + countdown.id + " resumed: " + countdown.name);
+            }
+
+            @Override
+            public void timerCancelled(CountdownTimers.Countdown countdown) {
+                out.println("timer " + countdown.id + " cancelled: " + countdown.name);
+            }
+
+            @Override
+            public void message(String text) {
+                out.println("! " + text);
+            }
+        });
+        engine.loadSavedSounds();
+        engine.restoreState();
+        // The stopwatch and timers run without progress frames: nothing draws them here
+        engine.countdowns().setWatched(false);
+        LatencyMetrics.start(engine.scheduler());
+        ControlServer control = startControl(engine, controlPort);
+        out.println("clock engine ready; type help");
+        StartupBenchmark.engineReady();
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(System.in))) {
+            for (String line; (line = in.readLine()) != null; ) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (line.equals("quit") || line.equals("exit")) break;
+                try {
+                    out.println(execute(engine, line));
+                } catch (IllegalArgumentException | DateTimeParseException ex) {
+                    out.println("? " + ex.getMessage());
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("stdin failed: " + ex.getMessage());
+        } finally {
+            if (control != null) control.stop();
+            engine.shutdown();
+        }
+    }
+
+    private static String execute(ClockEngine engine, String line) {
+        String[] w = line.split("\\s+", 3);
+        switch (w[0]) {
+            case "help":
+                return HELP;
+            case "alarm": {
+                if (w.length < 3) throw new IllegalArgumentException("usage: alarm hh:mm AM|PM [label]");
+                String[] rest = w[2].split("\\s+", 2);
+                LocalTime t = LocalTime.parse(w[1] + " " + rest[0].toUpperCase(Locale.ROOT), ALARM_FMT);
+                String label = rest.length > 1 ? rest[1] : "Alarm";
+                return "alarm set for " + engine.addOneShotAlarm(t, label);
+            }
+            case "repeat": {
+                if (w.length < 3) throw new IllegalArgumentException("usage: repeat hh:mm AM|PM rule [label]");
+                String[] rest = w[2].split("\\s+", 3);
+                if (rest.length < 2) throw new IllegalArgumentException("usage: repeat hh:mm AM|PM rule [label]");
+                LocalTime t = LocalTime.parse(w[1] + " " + rest[0].toUpperCase(Locale.ROOT), ALARM_FMT);
+                AlarmRule rule = AlarmRule.parse(rest[1], t, ZoneId.systemDefault());
+                String label = rest.length > 2 ? rest[2] : "Alarm";
+                return "alarm set, " + rule.describe() + ", first at " + engine.addAlarm(rule, label);
+            }
+            case "skip": {
+                if (w.length < 3) throw new IllegalArgumentException("usage: skip id yyyy-mm-dd");
+                ZonedDateTime next = engine.skipAlarm(Long.parseLong(w[1]), LocalDate.parse(w[2].trim()));
+                return next == null ? "no such repeating alarm" : "next at " + next;
+            }
+            case "alarms": {
+                StringBuilder sb = new StringBuilder();
+                for (AlarmStore.Alarm a : engine.alarms().snapshot()) {
+                    sb.append(a.id).append("  ")
+                            .append(Instant.ofEpochMilli(a.fireAtMillis()).atZone(ZoneId.systemDefault()).toLocalDateTime())
+                            .append("  ").append(a.label);
+                    AlarmRule rule = a.rule();
+                    if (rule != null) sb.append("  (").append(rule.describe()).append(')');
+                    sb.append('\n');
+                }
+                return sb.length() == 0 ? "no alarms" : sb.toString().trim();
+            }
+            case "unalarm":
+                if (w.length < 2) throw new IllegalArgumentException("usage: unalarm id");
+                return engine.removeAlarm(Long.parseLong(w[1])) ? "ok" : "no such alarm";
+            case "timer": {
+                if (w.length < 2) throw new IllegalArgumentException("usage: timer seconds [name]");
+                long seconds = Long.parseLong(w[1]);
+                String name = w.length > 2 ? w[2] : "Timer";
+                engine.startTimer(name, seconds, TimeUnit.SECONDS);
+                return "ok";
+            }
+            case "timers": {
+                StringBuilder sb = new StringBuilder();
+                long now = engine.countdowns().now();
+                for (CountdownTimers.Countdown c : engine.countdowns().snapshot()) {
+                    sb.append(c.id).append("  ").append(c.name).append("  ")
+                            .append(TimeFormat.seconds((c.remainingNanos(now) + 999_999_999L) / 1_000_000_000L))
+                            .append(c.isPaused() ? "  paused" : "").append('\n');
+                }
+                return sb.length() == 0 ? "no timers" : sb.toString().trim();
+            }
+            case "pause":
+            case "resume":
+            case "cancel": {
+                if (w.length < 2) throw new IllegalArgumentException("usage: " + w[0] + " id");
+                long id = Long.parseLong(w[1]);
+                boolean ok = w[0].equals("pause") ? engine.pauseTimer(id)
+                        : w[0].equals("resume") ? engine.resumeTimer(id) : engine.cancelTimer(id);
+                return ok ? "ok" : "no such running timer";
+            }
+            case "sw":
+                return stopwatch(engine, w.length > 1 ? w[1] : "show");
+            case "metrics":
+                return LatencyMetrics.ENABLED ? LatencyMetrics.report().trim() : "metrics are off; start with -Dclock.metrics=true";
+            default:
+                throw new IllegalArgumentException("unknown command; type help");
+        }
+    }
+
+    private static String stopwatch(ClockEngine engine, String op) {
+        switch (op) {
+            case "start":
+                engine.startStopwatch();
+                break;
+            case "stop":
+                engine.pauseStopwatch();
+                break;
+            case "lap":
+                if (engine.lapStopwatch() >= 0) {
+                    LapStore laps = engine.laps();
+                    return "lap " + laps.size() + "  " + TimeFormat.stopwatch(laps.lastSplit() / 1_000_000);
+                }
+                break;
+            case "reset":
+                engine.resetStopwatch();
+                break;
+            case "show":
+                break;
+            default:
+                throw new IllegalArgumentException("usage: sw start|stop|lap|reset|show");
+        }
+        StopwatchCore sw = engine.stopwatch();
+        return TimeFormat.stopwatch(sw.elapsedNanos() / 1_000_000) + (sw.isRunning() ? "  running" : "");
+    }
+}
@@ -0,0 +1,269 @@
+package clock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ControlServer
+ * Local HTTP control endpoint for scripts, bound to the loopback interface
+ * only. Each request runs on its own virtual thread (a cached platform pool
+ * before JDK 21) and calls the same ClockEngine methods as the UI buttons,
+ * so nothing here waits on the EDT. Responses are small JSON documents.
+ * POST /alarms also takes repeat=daily|weekdays|weekends|weekly:MON,FRI|monthly:15,
+ * an optional zone (default: the system zone) and except=date,date.
+ *
+ *   GET    /alarms                            POST /alarms?time=08:30 PM&label=...
+ *   DELETE /alarms/{id}                       POST /alarms/{id}/skip?date=2026-12-25
+ *   GET    /timers                            POST /timers?seconds=90&name=...
+ *   POST   /timers/{id}/pause|resume          DELETE /timers/{id}
+ *   GET    /stopwatch                         POST /stopwatch/start|stop|lap|reset
+ */
+final class ControlServer {
+    private static final DateTimeFormatter ALARM_FMT = DateTimeFormatter.ofPattern("hh:mm a", Locale.ENGLISH);
+
+    private final ClockEngine engine;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private ControlServer(ClockEngine engine, HttpServer server, ExecutorService executor) {
+        this.engine = engine;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /** Starts serving on 127.0.0.1:port; port 0 picks a free one. */
+    static ControlServer start(ClockEngine engine, int port) throws IOException {
+        // Headers and body go out as separate writes; with Nagle on, every
+        // keep-alive request waits out the client's delayed ACK (~40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        ExecutorService executor = virtualThreads("clock-control");
+        ControlServer cs = new ControlServer(engine, server, executor);
+        server.createContext("/", cs::handle);
+        server.setExecutor(executor);
+        server.start();
+        return cs;
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /** Thread-per-task on virtual threads when the runtime has them, looked up so the app still runs on JDK 17. */
+    static ExecutorService virtualThreads(String fallbackName) {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (Throwable ex) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, fallbackName);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        int status = 200;
+        String body;
+        String form = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            // Form-encoded bodies are accepted as well as query strings
+            Map<String, String> params = query(ex.getRequestURI().getRawQuery());
+            params.putAll(query(form));
+            body = route(ex.getRequestMethod(), ex.getRequestURI().getPath().split("/"), params);
+            if (body == null) {
+                status = 404;
+                body = error("not found");
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            status = 400;
+            // Not every exception has a message, e.g. one thrown by the JDK
+            body = error(e.getMessage() != null ? e.getMessage() : e.toString());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(String.valueOf(e));
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Returns the response body, or null for an unknown route
+    private String route(String method, String[] path, Map<String, String> q) {
+        String resource = path.length > 1 ? path[1] : "";
+        String arg = path.length > 2 ? path[2] : null;
+        String action = path.length > 3 ? path[3] : null;
+        switch (resource) {
+            case "alarms":
+                if (method.equals("GET") && arg == null) return alarms();
+                if (method.equals("POST") && arg == null) {
+                    LocalTime t = LocalTime.parse(required(q, "time").toUpperCase(Locale.ROOT), ALARM_FMT);
+                    String label = q.getOrDefault("label", "Alarm");
+                    ZonedDateTime at;
+                    if (q.containsKey("repeat")) {
+                        ZoneId zone = q.containsKey("zone") ? ZoneId.of(q.get("zone")) : ZoneId.systemDefault();
+                        AlarmRule rule = AlarmRule.parse(q.get("repeat"), t, zone);
+                        if (q.containsKey("except")) {
+                            for (String d : q.get("except").split(",")) rule = rule.except(LocalDate.parse(d.trim()));
+                        }
+                        at = engine.addAlarm(rule, label);
+                    } else {
+                        at = engine.addOneShotAlarm(t, label);
+                    }
+                    return "{\"fireAt\":\"" + at.toOffsetDateTime() + "\",\"pending\":" + engine.alarms().size() + "}";
+                }
+                if (method.equals("POST") && "skip".equals(action)) {
+                    ZonedDateTime next = engine.skipAlarm(id(arg), LocalDate.parse(required(q, "date")));
+                    return next == null ? ok(false) : "{\"fireAt\":\"" + next.toOffsetDateTime() + "\"}";
+                }
+                if (method.equals("DELETE") && arg != null && action == null) return ok(engine.removeAlarm(id(arg)));
+                return null;
+            case "timers":
+                if (method.equals("GET") && arg == null) return timers();
+                if (method.equals("POST") && arg == null) {
+                    long seconds = Long.parseLong(required(q, "seconds"));
+                    if (seconds <= 0) throw new IllegalArgumentException("seconds must be positive");
+                    CountdownTimers.Countdown c = engine.startTimer(q.getOrDefault("name", "Timer"), seconds, TimeUnit.SECONDS);
+                    return "{\"id\":" + c.id + "}";
+                }
+                if (method.equals("POST") && "pause".equals(action)) return ok(engine.pauseTimer(id(arg)));
+                if (method.equals("POST") && "resume".equals(action)) return ok(engine.resumeTimer(id(arg)));
+                if (method.equals("DELETE") && arg != null && action == null) return ok(engine.cancelTimer(id(arg)));
+                return null;
+            case "stopwatch":
+                if (method.equals("GET") && arg == null) return stopwatch();
+                if (!method.equals("POST") || arg == null) return null;
+                switch (arg) {
+                    case "start":
+                        engine.startStopwatch();
+                        break;
+                    case "stop":
+                        engine.pauseStopwatch();
+                        break;
+                    case "lap":
+                        engine.lapStopwatch();
+                        break;
+                    case "reset":
+                        engine.resetStopwatch();
+                        break;
+                    default:
+                        return null;
+                }
+                return stopwatch();
+            default:
+                return null;
+        }
+    }
+
+    private String alarms() {
+        StringBuilder sb = new StringBuilder("[");
+        for (AlarmStore.Alarm a : engine.alarms().snapshot()) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append("{\"id\":").append(a.id).append(",\"fireAtMillis\":").append(a.fireAtMillis())
+                    .append(",\"label\":").append(quote(a.label));
+            AlarmRule rule = a.rule();
+            if (rule != null) sb.append(",\"repeat\":").append(quote(rule.encode()));
+            sb.append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private String timers() {
+        StringBuilder sb = new StringBuilder("[");
+        long now = engine.countdowns().now();
+        for (CountdownTimers.Countdown c : engine.countdowns().snapshot()) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append("{\"id\":").append(c.id).append(",\"name\":").append(quote(c.name))
+                    .append(",\"remainingMillis\":").append(c.remainingNanos(now) / 1_000_000)
+                    .append(",\"durationMillis\":").append(c.durationNanos / 1_000_000)
+                    .append(",\"paused\":").append(c.isPaused()).append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private String stopwatch() {
+        StopwatchCore.Snapshot s = engine.stopwatch().snapshot();
+        LapStore laps = engine.laps();
+        return "{\"running\":" + s.running + ",\"elapsedMillis\":" + s.elapsedNanos(System.nanoTime()) / 1_000_000
+                + ",\"laps\":" + s.laps + ",\"lastLapMillis\":" + laps.lastSplit() / 1_000_000
+                + ",\"bestLapMillis\":" + laps.minSplit() / 1_000_000 + "}";
+    }
+
+    private static String ok(boolean ok) {
+        return "{\"ok\":" + ok + "}";
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private static long id(String s) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad id: " + s);
+        }
+    }
+
+    private static String required(Map<String, String> q, String key) {
+        String v = q.get(key);
+        if (v == null || v.isEmpty()) throw new IllegalArgumentException("missing parameter: " + key);
+        return v;
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> q = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return q;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            q.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return q;
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
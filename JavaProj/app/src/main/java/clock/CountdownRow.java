@@ -0,0 +1,62 @@
+package clock;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+
+/**
+ * CountdownRow
+ * One countdown in the Timer card: name, progress bar, remaining time and
+ * pause/resume and cancel buttons. update() only touches components whose
+ * value changed, so a batched render over many rows stays cheap. EDT only.
+ */
+final class CountdownRow extends JPanel {
+    final CountdownTimers.Countdown countdown;
+    final JButton pause;
+    private final JProgressBar progress = new JProgressBar(0, CountdownTimers.PROGRESS_STEPS);
+    private final TimeLabel remaining = new TimeLabel("00:00");
+    private final char[] chars = new char[TimeFormat.MAX_LENGTH];
+    private long shownSeconds = -1;
+
+    CountdownRow(CountdownTimers.Countdown countdown, JButton pause, JButton cancel) {
+        super(new BorderLayout(10, 0));
+        this.countdown = countdown;
+        this.pause = pause;
+        setOpaque(false);
+        setBorder(new EmptyBorder(4, 0, 4, 0));
+
+        JLabel name = new JLabel(countdown.name);
+        name.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        name.setForeground(new Color(200, 200, 200));
+        name.setPreferredSize(new Dimension(120, 20));
+
+        progress.setPreferredSize(new Dimension(220, 10));
+        progress.setForeground(new Color(90, 160, 255));
+        progress.setBackground(new Color(34, 36, 40));
+        progress.setBorderPainted(false);
+
+        remaining.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        remaining.setForeground(new Color(180, 190, 200));
+
+        JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        right.setOpaque(false);
+        right.add(remaining);
+        right.add(pause);
+        right.add(cancel);
+
+        add(name, BorderLayout.WEST);
+        add(progress, BorderLayout.CENTER);
+        add(right, BorderLayout.EAST);
+    }
+
+    void update(long now) {
+        int value = (int) (countdown.progress(now) * CountdownTimers.PROGRESS_STEPS);
+        if (value != progress.getValue()) progress.setValue(value);
+        // Round up so the display reaches 00:00 exactly when the countdown expires
+        long seconds = (countdown.remainingNanos(now) + 999_999_999L) / 1_000_000_000L;
+        if (seconds != shownSeconds) {
+            shownSeconds = seconds;
+            remaining.setChars(chars, TimeFormat.seconds(seconds, chars));
+        }
+    }
+}
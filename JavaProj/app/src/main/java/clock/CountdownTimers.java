@@ -0,0 +1,231 @@
+package clock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * CountdownTimers
+ * Any number of named countdowns on the shared TickScheduler. Each countdown
+ * stores only its monotonic deadline (or, while paused, its remaining time),
+ * so the remaining time is always deadline - now and never drifts.
+ * Expiry is a one-shot task per countdown at its exact deadline. Progress
+ * frames are separate and adaptive: one self-rescheduling frame task whose
+ * delay is the shortest any running countdown needs — ~30 fps in the last
+ * seconds, about one frame per displayed second for long countdowns, and
+ * none at all while nobody is watching or everything is paused.
+ */
+final class CountdownTimers {
+    static final long SMOOTH_FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(33);
+    static final long SMOOTH_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(5);
+    static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** Progress resolution; a frame is never needed more often than one step. */
+    static final int PROGRESS_STEPS = 1000;
+
+    interface Listener {
+        /** Called on a scheduler thread for every progress frame. */
+        void timersTicked();
+
+        /** Called on a scheduler thread when a countdown reaches zero. */
+        void timerFinished(Countdown countdown);
+    }
+
+    /** State is guarded by the owning CountdownTimers; reads are safe from any thread. */
+    static final class Countdown {
+        final long id;
+        final String name;
+        final long durationNanos;
+        private volatile long deadlineNanos;
+        /** Remaining time while paused, -1 while running. */
+        private volatile long pausedRemaining = -1;
+        private TickScheduler.Handle expiry;
+        // Bumped each time expiry is armed; an expiry task with an older value was superseded
+        private int armed;
+
+        Countdown(long id, String name, long durationNanos, long deadlineNanos) {
+            this.id = id;
+            this.name = name;
+            this.durationNanos = durationNanos;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        boolean isPaused() {
+            return pausedRemaining >= 0;
+        }
+
+        long remainingNanos(long now) {
+            long paused = pausedRemaining;
+            return paused >= 0 ? paused : Math.max(0, deadlineNanos - now);
+        }
+
+        /** Fraction done in [0, 1]. */
+        double progress(long now) {
+            return 1.0 - (double) remainingNanos(now) / durationNanos;
+        }
+
+        /** How long until this countdown next needs a frame. */
+        long frameIntervalNanos(long now) {
+            long remaining = remainingNanos(now);
+            if (remaining <= SMOOTH_WINDOW_NANOS) return SMOOTH_FRAME_NANOS;
+            // Next change of the displayed seconds, or the next progress step if sooner
+            long toSecond = (remaining - 1) % SECOND_NANOS + 1;
+            return Math.max(SMOOTH_FRAME_NANOS, Math.min(toSecond, durationNanos / PROGRESS_STEPS));
+        }
+    }
+
+    private final TickScheduler scheduler;
+    private final Listener listener;
+    private final LongSupplier nanoClock;
+    private final Map<Long, Countdown> active = new LinkedHashMap<>();
+    private long nextId = 1;
+    private boolean watched = true;
+    private TickScheduler.Handle frame;
+    private long frameAt;
+
+    CountdownTimers(TickScheduler scheduler, Listener listener) {
+        this(scheduler, listener, System::nanoTime);
+    }
+
+    CountdownTimers(TickScheduler scheduler, Listener listener, LongSupplier nanoClock) {
+        this.scheduler = scheduler;
+        this.listener = listener;
+        this.nanoClock = nanoClock;
+    }
+
+    /** Starts a countdown and returns it. */
+    synchronized Countdown start(String name, long duration, TimeUnit unit) {
+        long nanos = unit.toNanos(duration);
+        if (nanos <= 0) throw new IllegalArgumentException("duration must be positive");
+        Countdown c = new Countdown(nextId++, name, nanos, nanoClock.getAsLong() + nanos);
+        active.put(c.id, c);
+        armExpiry(c, nanos);
+        scheduleFrame();
+        return c;
+    }
+
+    /**
+     * Recreates a countdown that was started earlier, e.g. before a restart,
+     * with remainingNanos left of durationNanos; paused ones stay paused.
+     */
+    synchronized Countdown restore(String name, long durationNanos, long remainingNanos, boolean paused) {
+        long remaining = Math.max(1, Math.min(remainingNanos, durationNanos));
+        Countdown c = new Countdown(nextId++, name, durationNanos, nanoClock.getAsLong() + remaining);
+        active.put(c.id, c);
+        if (paused) {
+            c.pausedRemaining = remaining;
+        } else {
+            armExpiry(c, remaining);
+            scheduleFrame();
+        }
+        return c;
+    }
+
+    synchronized boolean cancel(long id) {
+        Countdown c = active.remove(id);
+        if (c == null) return false;
+        c.expiry = TickScheduler.cancel(c.expiry);
+        return true;
+    }
+
+    /** Freezes the remaining time; false if unknown or already paused. */
+    synchronized boolean pause(long id) {
+        Countdown c = active.get(id);
+        if (c == null || c.isPaused()) return false;
+        c.pausedRemaining = Math.max(1, c.deadlineNanos - nanoClock.getAsLong());
+        c.expiry = TickScheduler.cancel(c.expiry);
+        return true;
+    }
+
+    /** Continues from the frozen remaining time with a fresh deadline. */
+    synchronized boolean resume(long id) {
+        Countdown c = active.get(id);
+        if (c == null || !c.isPaused()) return false;
+        long remaining = c.pausedRemaining;
+        c.deadlineNanos = nanoClock.getAsLong() + remaining;
+        c.pausedRemaining = -1;
+        armExpiry(c, remaining);
+        scheduleFrame();
+        return true;
+    }
+
+    /**
+     * Whether anyone is looking at the progress. While unwatched no frames
+     * run; expiry is unaffected.
+     */
+    synchronized void setWatched(boolean watched) {
+        if (this.watched == watched) return;
+        this.watched = watched;
+        if (watched) scheduleFrame();
+        else frame = TickScheduler.cancel(frame);
+    }
+
+    synchronized Countdown get(long id) {
+        return active.get(id);
+    }
+
+    synchronized List<Countdown> snapshot() {
+        return new ArrayList<>(active.values());
+    }
+
+    synchronized int size() {
+        return active.size();
+    }
+
+    long now() {
+        return nanoClock.getAsLong();
+    }
+
+    // Caller holds the lock
+    private void armExpiry(Countdown c, long delayNanos) {
+        int armed = ++c.armed;
+        c.expiry = scheduler.schedule(() -> onExpiry(c, armed), delayNanos, TimeUnit.NANOSECONDS,
+                LatencyMetrics.TIMER_EXPIRY);
+    }
+
+    private void onExpiry(Countdown c, int armed) {
+        synchronized (this) {
+            // Lost a race with cancel, pause or a resume that re-armed it
+            if (active.get(c.id) != c || c.isPaused() || c.armed != armed) return;
+            long remaining = c.deadlineNanos - nanoClock.getAsLong();
+            if (remaining > 0) {
+                // Woke early (timer slack, or a deadline moved under us): sleep the rest
+                armExpiry(c, remaining);
+                return;
+            }
+            active.remove(c.id);
+            c.expiry = null;
+        }
+        listener.timerFinished(c);
+    }
+
+    // Schedules the frame task for the soonest moment any running countdown
+    // needs one, keeping an already-scheduled earlier frame
+    private void scheduleFrame() {
+        if (!watched) return;
+        long now = nanoClock.getAsLong();
+        long interval = Long.MAX_VALUE;
+        for (Countdown c : active.values()) {
+            if (!c.isPaused()) interval = Math.min(interval, c.frameIntervalNanos(now));
+        }
+        if (interval == Long.MAX_VALUE) {
+            frame = TickScheduler.cancel(frame);
+            return;
+        }
+        long at = now + interval;
+        if (frame != null && !frame.isDone() && frameAt - at <= 0) return;
+        frame = TickScheduler.cancel(frame);
+        frameAt = at;
+        frame = scheduler.schedule(this::onFrame, interval, TimeUnit.NANOSECONDS);
+    }
+
+    private void onFrame() {
+        synchronized (this) {
+            frame = null;
+            scheduleFrame();
+        }
+        listener.timersTicked();
+    }
+}
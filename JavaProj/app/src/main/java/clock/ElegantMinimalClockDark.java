@@ -1,939 +1,1080 @@
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.LineEvent;
-import javax.swing.*;
-import javax.swing.border.EmptyBorder;
-import javax.swing.filechooser.FileNameExtensionFilter;
-import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.geom.RoundRectangle2D;
-import java.io.File;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.prefs.Preferences;
-
-/**
- * ElegantMinimalClockDark
- * Single-file Swing application - dark theme, top navigation, time section,
- * Alarm / Timer / Stopwatch panels, WAV audio playback via AudioSystem,
- * and an Audio selection panel to choose custom files for each sound.
- */
-public class ElegantMinimalClockDark extends JFrame {
-    // Time formatters
-    private final DateTimeFormatter timeFmt = DateTimeFormatter.ofPattern("hh:mm:ss a");
-    private final DateTimeFormatter dayFmt = DateTimeFormatter.ofPattern("EEE");
-    private final DateTimeFormatter dateFmt = DateTimeFormatter.ofPattern("dd");
-    private final DateTimeFormatter monthFmt = DateTimeFormatter.ofPattern("MMM");
-
-    // Time UI
-    private final JLabel bigTimeLabel = new JLabel("", SwingConstants.CENTER);
-    private final JLabel weekdayLabel = new JLabel("", SwingConstants.LEFT);
-    private final JLabel dayLabel = new JLabel("", SwingConstants.CENTER);
-    private final JLabel dateLabel = new JLabel("", SwingConstants.CENTER);
-    private final JLabel monthLabel = new JLabel("", SwingConstants.CENTER);
-
-    // Alarm
-    private final JTextField alarmField = new JTextField();
-    private Timer alarmChecker;
-
-    // Timer
-    private final JTextField timerField = new JTextField();
-    private final JProgressBar timerProgress = new JProgressBar();
-    private final JLabel timerRemaining = new JLabel("00:00", SwingConstants.CENTER);
-    private Timer countdownTimer;
-    private int countdownSeconds;
-
-    // Stopwatch
-    private final JLabel stopwatchLabel = new JLabel("00:00.00", SwingConstants.CENTER);
-    private long stopwatchStart = 0;
-    private boolean stopwatchRunning = false;
-    private Timer stopwatchTimer;
-    private final DefaultListModel<String> lapModel = new DefaultListModel<>();
-
-    // Navigation buttons (top)
-    private final JButton navAlarm = new JButton();
-    private final JButton navTimer = new JButton();
-    private final JButton navStopwatch = new JButton();
-    private final JButton navAudio = new JButton();
-
-    // Card layout container
-    private final JPanel cardsPanel = new JPanel(new CardLayout());
-
-    // Keep active Clips so they are not GC'd immediately
-    private final List<Clip> activeClips = Collections.synchronizedList(new ArrayList<>());
-
-    // Audio selection fields (defaults)
-    private String alarmSoundPath = "sounds/alarm.wav";
-    private String timerSoundPath = "sounds/timer_finish.wav";
-    private String stopwatchClickPath = "sounds/click.wav";
-    private String stopwatchResetPath = "sounds/reset.wav";
-
-    // Preferences keys
-    private static final String PREF_ALARM = "alarmSound";
-    private static final String PREF_TIMER = "timerSound";
-    private static final String PREF_STOPWATCH_CLICK = "stopwatchClick";
-    private static final String PREF_STOPWATCH_RESET = "stopwatchReset";
-    private final Preferences prefs = Preferences.userNodeForPackage(ElegantMinimalClockDark.class);
-
-    public ElegantMinimalClockDark() {
-        setTitle("Elegant Clock - Dark");
-        setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setSize(920, 620);
-        setLocationRelativeTo(null);
-
-        JPanel root = new JPanel(new BorderLayout(16, 16));
-        root.setBackground(new Color(18, 20, 23));
-        root.setBorder(new EmptyBorder(16, 16, 16, 16));
-        setContentPane(root);
-
-        JPanel topColumn = new JPanel(new BorderLayout(12, 12));
-        topColumn.setOpaque(false);
-        topColumn.add(buildTimeSection(), BorderLayout.NORTH);
-        topColumn.add(buildNavBar(), BorderLayout.SOUTH);
-        root.add(topColumn, BorderLayout.NORTH);
-
-        cardsPanel.add(buildAlarmPanel(), "ALARM");
-        cardsPanel.add(buildTimerPanel(), "TIMER");
-        cardsPanel.add(buildStopwatchPanel(), "STOPWATCH");
-        cardsPanel.add(buildAudioPanel(), "AUDIO");
-        showCard("ALARM");
-
-        root.add(cardsPanel, BorderLayout.CENTER);
-
-        loadSavedAudioPaths();
-        startClock();
-        setActiveNav(navAlarm);
-        setVisible(true);
-    }
-
-    // Time section
-    private JPanel buildTimeSection() {
-        RoundedPanel card = new RoundedPanel(new Color(28, 30, 34), 14);
-        card.setLayout(new BorderLayout(10, 10));
-        card.setBorder(new EmptyBorder(12, 12, 12, 12));
-        weekdayLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        weekdayLabel.setForeground(new Color(160, 170, 180));
-        card.add(weekdayLabel, BorderLayout.NORTH);
-
-        bigTimeLabel.setFont(new Font("Segoe UI", Font.BOLD, 56));
-        bigTimeLabel.setForeground(new Color(220, 230, 240));
-        card.add(bigTimeLabel, BorderLayout.CENTER);
-
-        JPanel infoRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 0));
-        infoRow.setOpaque(false);
-
-        dayLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        dayLabel.setForeground(new Color(230, 230, 230));
-        dateLabel.setFont(new Font("Segoe UI", Font.BOLD, 20));
-        dateLabel.setForeground(new Color(240, 240, 240));
-        monthLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-        monthLabel.setForeground(new Color(180, 190, 200));
-        infoRow.add(makeInfoCard("DAY", dayLabel));
-        infoRow.add(makeInfoCard("DATE", dateLabel));
-        infoRow.add(makeInfoCard("MONTH", monthLabel));
-        card.add(infoRow, BorderLayout.SOUTH);
-
-        // Update time immediately and periodically
-        new Timer(true).scheduleAtFixedRate(new TimerTask() {
-            public void run() {
-                LocalDateTime now = LocalDateTime.now();
-                SwingUtilities.invokeLater(() -> {
-                    bigTimeLabel.setText(now.format(timeFmt));
-                    weekdayLabel.setText(now.format(dayFmt).toUpperCase());
-                    dayLabel.setText(now.format(dayFmt).toUpperCase());
-                    dateLabel.setText(now.format(dateFmt));
-                    monthLabel.setText(now.format(monthFmt).toUpperCase());
-                });
-            }
-        }, 0, 250);
-
-        return card;
-    }
-
-    private JPanel makeInfoCard(String title, JLabel valueLabel) {
-        RoundedPanel p = new RoundedPanel(new Color(22, 24, 28), 12);
-        p.setLayout(new BorderLayout());
-        p.setPreferredSize(new Dimension(120, 64));
-        p.setBorder(new EmptyBorder(8, 10, 8, 10));
-
-        JLabel t = new JLabel(title, SwingConstants.CENTER);
-        t.setFont(new Font("Segoe UI", Font.PLAIN, 11));
-        t.setForeground(new Color(140, 150, 160));
-        p.add(t, BorderLayout.NORTH);
-        valueLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        p.add(valueLabel, BorderLayout.CENTER);
-
-        return p;
-    }
-
-    // Top navigation bar
-    private JPanel buildNavBar() {
-        RoundedPanel navBar = new RoundedPanel(new Color(24, 26, 30), 12);
-        navBar.setLayout(new FlowLayout(FlowLayout.CENTER, 24, 12));
-        navBar.setBorder(new EmptyBorder(8, 8, 8, 8));
-        Font navFont = new Font("Segoe UI", Font.BOLD, 18);
-        Color fg = new Color(220, 220, 220);
-        Color bg = new Color(28, 30, 34);
-
-        configureNavButton(navAlarm, "Alarm", new NavIcon(NavIcon.Type.ALARM, 18, new Color(160, 200, 255)), navFont, fg, bg);
-        configureNavButton(navTimer, "Timer", new NavIcon(NavIcon.Type.TIMER, 18, new Color(160, 200, 255)), navFont, fg, bg);
-        configureNavButton(navStopwatch, "Stopwatch", new NavIcon(NavIcon.Type.STOPWATCH, 18, new Color(160, 200, 255)), navFont, fg, bg);
-        configureNavButton(navAudio, "Audio", new NavIcon(NavIcon.Type.TIMER, 18, new Color(160, 200, 255)), navFont, fg, bg);
-
-        navAlarm.addActionListener((ActionEvent e) -> {
-            showCard("ALARM");
-            setActiveNav(navAlarm);
-        });
-        navTimer.addActionListener((ActionEvent e) -> {
-            showCard("TIMER");
-            setActiveNav(navTimer);
-        });
-        navStopwatch.addActionListener((ActionEvent e) -> {
-            showCard("STOPWATCH");
-            setActiveNav(navStopwatch);
-        });
-        navAudio.addActionListener((ActionEvent e) -> {
-            showCard("AUDIO");
-            setActiveNav(navAudio);
-        });
-
-        navBar.add(navAlarm);
-        navBar.add(navTimer);
-        navBar.add(navStopwatch);
-        navBar.add(navAudio);
-
-        return navBar;
-    }
-
-    private void configureNavButton(JButton b, String text, Icon icon, Font font, Color fg, Color bg) {
-        b.setText(text);
-        b.setIcon(icon);
-        b.setHorizontalTextPosition(SwingConstants.RIGHT);
-        b.setIconTextGap(10);
-        b.setFont(font);
-        b.setForeground(fg);
-        b.setBackground(bg);
-        b.setFocusPainted(false);
-        b.setBorderPainted(false);
-        b.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        b.setPreferredSize(new Dimension(200, 52));
-    }
-
-    // Ensure this method exists and is used by nav actions
-    private void setActiveNav(JButton active) {
-        Color activeBg = new Color(60, 130, 255);
-        Color activeFg = Color.WHITE;
-        Color inactiveBg = new Color(28, 30, 34);
-        Color inactiveFg = new Color(200, 200, 200);
-
-        JButton[] all = {navAlarm, navTimer, navStopwatch, navAudio};
-        for (JButton b : all) {
-            if (b == active) {
-                b.setBackground(activeBg);
-                b.setForeground(activeFg);
-                b.setBorder(BorderFactory.createLineBorder(new Color(90, 160, 255), 2));
-            } else {
-                b.setBackground(inactiveBg);
-                b.setForeground(inactiveFg);
-                b.setBorder(BorderFactory.createEmptyBorder(2, 2, 2, 2));
-            }
-        }
-    }
-
-    private void showCard(String name) {
-        CardLayout cl = (CardLayout) cardsPanel.getLayout();
-        cl.show(cardsPanel, name);
-    }
-
-    // Panels for Alarm / Timer / Stopwatch
-
-    private JPanel buildAlarmPanel() {
-        JPanel p = new RoundedPanel(new Color(24, 26, 30), 12);
-        p.setLayout(new GridBagLayout());
-        p.setBorder(new EmptyBorder(14, 14, 14, 14));
-        GridBagConstraints c = new GridBagConstraints();
-        c.insets = new Insets(8, 8, 8, 8);
-        c.fill = GridBagConstraints.HORIZONTAL;
-
-        JLabel lbl = new JLabel("Alarm time (HH:MM AM/PM)");
-        lbl.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        lbl.setForeground(new Color(200, 200, 200));
-        c.gridx = 0;
-        c.gridy = 0;
-        c.gridwidth = 2;
-        p.add(lbl, c);
-
-        alarmField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        alarmField.setBackground(new Color(34, 36, 40));
-        alarmField.setForeground(new Color(220, 220, 220));
-        c.gridy = 1;
-        c.gridwidth = 1;
-        c.weightx = 1.0;
-        p.add(alarmField, c);
-
-        JButton setBtn = flatButton("Set Alarm");
-        setBtn.addActionListener(e -> setAlarm());
-        c.gridx = 1;
-        c.weightx = 0;
-        p.add(setBtn, c);
-
-        JLabel hint = new JLabel("Sound file used: " + alarmSoundPath, SwingConstants.LEFT);
-        hint.setFont(new Font("Segoe UI", Font.PLAIN, 11));
-        hint.setForeground(new Color(150, 160, 170));
-        c.gridx = 0;
-        c.gridy = 2;
-        c.gridwidth = 2;
-        p.add(hint, c);
-
-        return p;
-    }
-
-    private JPanel buildTimerPanel() {
-        JPanel p = new RoundedPanel(new Color(24, 26, 30), 12);
-        p.setLayout(new GridBagLayout());
-        p.setBorder(new EmptyBorder(14, 14, 14, 14));
-        GridBagConstraints c = new GridBagConstraints();
-        c.insets = new Insets(8, 8, 8, 8);
-        c.fill = GridBagConstraints.HORIZONTAL;
-        JLabel lbl = new JLabel("Timer seconds");
-        lbl.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        lbl.setForeground(new Color(200, 200, 200));
-        c.gridx = 0;
-        c.gridy = 0;
-        c.gridwidth = 2;
-        p.add(lbl, c);
-
-        timerField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        timerField.setBackground(new Color(34, 36, 40));
-        timerField.setForeground(new Color(220, 220, 220));
-        c.gridy = 1;
-        c.gridwidth = 1;
-        c.weightx = 1.0;
-        p.add(timerField, c);
-
-        JButton start = flatButton("Start");
-        start.addActionListener(e -> startTimer());
-        c.gridx = 1;
-        c.weightx = 0;
-        p.add(start, c);
-
-        timerProgress.setStringPainted(false);
-        timerProgress.setPreferredSize(new Dimension(420, 10));
-        timerProgress.setForeground(new Color(90, 160, 255));
-        timerProgress.setBackground(new Color(34, 36, 40));
-        c.gridx = 0;
-        c.gridy = 2;
-        c.gridwidth = 2;
-        c.weightx = 1.0;
-        p.add(timerProgress, c);
-
-        timerRemaining.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-        timerRemaining.setForeground(new Color(180, 190, 200));
-        c.gridy = 3;
-        p.add(timerRemaining, c);
-
-        JLabel hint = new JLabel("Sound file used: " + timerSoundPath, SwingConstants.LEFT);
-        hint.setFont(new Font("Segoe UI", Font.PLAIN, 11));
-        hint.setForeground(new Color(150, 160, 170));
-        c.gridy = 4;
-        p.add(hint, c);
-
-        return p;
-    }
-
-    private JPanel buildStopwatchPanel() {
-        JPanel p = new RoundedPanel(new Color(24, 26, 30), 12);
-        p.setLayout(new BorderLayout(8, 8));
-        p.setBorder(new EmptyBorder(14, 14, 14, 14));
-
-        stopwatchLabel.setFont(new Font("Segoe UI", Font.BOLD, 28));
-        stopwatchLabel.setForeground(new Color(220, 220, 220));
-        p.add(stopwatchLabel, BorderLayout.NORTH);
-
-        JPanel controls = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 6));
-        controls.setOpaque(false);
-
-        JButton playBtn = iconButton(new PlayIcon(18, new Color(220, 220, 220)), "Start");
-        JButton stopBtn = iconButton(new StopIcon(16, new Color(220, 220, 220)), "Stop");
-        JButton lapBtn = iconButton(new FlagIcon(16, new Color(220, 220, 220)), "Lap");
-        JButton resetBtn = iconButton(new ResetIcon(18, new Color(220, 220, 220)), "Reset");
-        playBtn.addActionListener(e -> startStopwatch());
-        stopBtn.addActionListener(e -> stopStopwatch());
-        lapBtn.addActionListener(e -> lapStopwatch());
-        resetBtn.addActionListener(e -> resetStopwatch());
-        controls.add(playBtn);
-        controls.add(stopBtn);
-        controls.add(lapBtn);
-        controls.add(resetBtn);
-
-        p.add(controls, BorderLayout.CENTER);
-
-        JList<String> lapList = new JList<>(lapModel);
-        lapList.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-        lapList.setForeground(new Color(200, 200, 200));
-        lapList.setBackground(new Color(28, 30, 34));
-        lapList.setVisibleRowCount(4);
-        JScrollPane sp = new JScrollPane(lapList);
-        sp.setBorder(null);
-        sp.setPreferredSize(new Dimension(0, 120));
-        p.add(sp, BorderLayout.SOUTH);
-
-        JLabel hint = new JLabel("Sounds: " + stopwatchClickPath + " | " + stopwatchResetPath, SwingConstants.LEFT);
-        hint.setFont(new Font("Segoe UI", Font.PLAIN, 11));
-        hint.setForeground(new Color(150, 160, 170));
-        p.add(hint, BorderLayout.NORTH);
-
-        return p;
-    }
-
-    // Audio selection panel
-    private JPanel buildAudioPanel() {
-        JPanel p = new RoundedPanel(new Color(24, 26, 30), 12);
-        p.setLayout(new GridBagLayout());
-        p.setBorder(new EmptyBorder(14, 14, 14, 14));
-        GridBagConstraints c = new GridBagConstraints();
-        c.insets = new Insets(8, 8, 8, 8);
-        c.fill = GridBagConstraints.HORIZONTAL;
-        c.gridx = 0;
-        c.gridy = 0;
-        c.gridwidth = 2;
-
-        JLabel title = new JLabel("Select audio files", SwingConstants.LEFT);
-        title.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        title.setForeground(new Color(220, 220, 220));
-        p.add(title, c);
-
-        // Alarm row
-        c.gridy++;
-        c.gridwidth = 1;
-        JLabel alarmLbl = new JLabel("Alarm:");
-        alarmLbl.setForeground(new Color(200, 200, 200));
-        p.add(alarmLbl, c);
-
-        JButton alarmChoose = flatButton("Choose...");
-        alarmChoose.addActionListener(e -> {
-            String chosen = chooseAudioFile(alarmSoundPath);
-            if (chosen != null) {
-                alarmSoundPath = chosen;
-                prefs.put(PREF_ALARM, alarmSoundPath);
-                notifyUser("Alarm sound set");
-            }
-        });
-        c.gridx = 1;
-        p.add(alarmChoose, c);
-
-        // Timer row
-        c.gridx = 0;
-        c.gridy++;
-        JLabel timerLbl = new JLabel("Timer:");
-        timerLbl.setForeground(new Color(200, 200, 200));
-        p.add(timerLbl, c);
-
-        JButton timerChoose = flatButton("Choose...");
-        timerChoose.addActionListener(e -> {
-            String chosen = chooseAudioFile(timerSoundPath);
-            if (chosen != null) {
-                timerSoundPath = chosen;
-                prefs.put(PREF_TIMER, timerSoundPath);
-                notifyUser("Timer sound set");
-            }
-        });
-        c.gridx = 1;
-        p.add(timerChoose, c);
-
-        // Stopwatch click row
-        c.gridx = 0;
-        c.gridy++;
-        JLabel clickLbl = new JLabel("Stopwatch click:");
-        clickLbl.setForeground(new Color(200, 200, 200));
-        p.add(clickLbl, c);
-
-        JButton clickChoose = flatButton("Choose...");
-        clickChoose.addActionListener(e -> {
-            String chosen = chooseAudioFile(stopwatchClickPath);
-            if (chosen != null) {
-                stopwatchClickPath = chosen;
-                prefs.put(PREF_STOPWATCH_CLICK, stopwatchClickPath);
-                notifyUser("Stopwatch click sound set");
-            }
-        });
-        c.gridx = 1;
-        p.add(clickChoose, c);
-
-        // Stopwatch reset row
-        c.gridx = 0;
-        c.gridy++;
-        JLabel resetLbl = new JLabel("Stopwatch reset:");
-        resetLbl.setForeground(new Color(200, 200, 200));
-        p.add(resetLbl, c);
-
-        JButton resetChoose = flatButton("Choose...");
-        resetChoose.addActionListener(e -> {
-            String chosen = chooseAudioFile(stopwatchResetPath);
-            if (chosen != null) {
-                stopwatchResetPath = chosen;
-                prefs.put(PREF_STOPWATCH_RESET, stopwatchResetPath);
-                notifyUser("Stopwatch reset sound set");
-            }
-        });
-        c.gridx = 1;
-        p.add(resetChoose, c);
-
-        return p;
-    }
-
-    // Helpers
-    private JButton flatButton(String text) {
-        JButton b = new JButton(text);
-        b.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        b.setBackground(new Color(60, 65, 75));
-        b.setForeground(new Color(230, 230, 230));
-        b.setFocusPainted(false);
-        b.setBorderPainted(false);
-        b.setPreferredSize(new Dimension(110, 36));
-        b.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        return b;
-    }
-
-    private JButton iconButton(Icon icon, String tooltip) {
-        JButton b = new JButton(icon);
-        b.setPreferredSize(new Dimension(44, 36));
-        b.setBackground(new Color(28, 30, 34));
-        b.setFocusPainted(false);
-        b.setBorder(BorderFactory.createEmptyBorder());
-        b.setToolTipText(tooltip);
-        b.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        return b;
-    }
-
-    // Clock updater
-    private void startClock() {
-        Timer t = new Timer(true);
-        t.scheduleAtFixedRate(new TimerTask() {
-            public void run() {
-                LocalDateTime now = LocalDateTime.now();
-                SwingUtilities.invokeLater(() -> {
-                    bigTimeLabel.setText(now.format(timeFmt));
-                    weekdayLabel.setText(now.format(dayFmt).toUpperCase());
-                    dayLabel.setText(now.format(dayFmt).toUpperCase());
-                    dateLabel.setText(now.format(dateFmt));
-                    monthLabel.setText(now.format(monthFmt).toUpperCase());
-                });
-            }
-        }, 0, 250);
-    }
-
-    // Alarm logic
-    private void setAlarm() {
-        String text = alarmField.getText().trim();
-        if (text.isEmpty()) {
-            notifyUser("Enter alarm time like 08:30 PM");
-            return;
-        }
-        try {
-            DateTimeFormatter parseFmt = DateTimeFormatter.ofPattern("hh:mm a");
-            java.time.LocalTime alarmTime = java.time.LocalTime.parse(text.toUpperCase(), parseFmt);
-            if (alarmChecker != null) alarmChecker.cancel();
-            alarmChecker = new Timer(true);
-            alarmChecker.scheduleAtFixedRate(new TimerTask() {
-                public void run() {
-                    java.time.LocalTime now = java.time.LocalTime.now().withSecond(0).withNano(0);
-                    if (now.equals(alarmTime)) {
-                        SwingUtilities.invokeLater(() -> {
-                            notifyUser("Alarm");
-                            playSound(alarmSoundPath);
-                        });
-                        alarmChecker.cancel();
-                    }
-                }
-            }, 0, 1000);
-            notifyUser("Alarm set for " + alarmTime.format(DateTimeFormatter.ofPattern("hh:mm a")));
-        } catch (Exception ex) {
-            notifyUser("Invalid format. Use HH:MM AM/PM");
-        }
-    }
-
-    // Timer logic
-    private void startTimer() {
-        String t = timerField.getText().trim();
-        if (t.isEmpty()) {
-            notifyUser("Enter seconds");
-            return;
-        }
-        try {
-            int seconds = Integer.parseInt(t);
-            if (seconds <= 0) {
-                notifyUser("Enter a positive number");
-                return;
-            }
-            if (countdownTimer != null) countdownTimer.cancel();
-            countdownSeconds = seconds;
-            timerProgress.setMaximum(seconds);
-            timerProgress.setValue(0);
-            timerRemaining.setText(formatSeconds(seconds));
-            countdownTimer = new Timer(true);
-            countdownTimer.scheduleAtFixedRate(new TimerTask() {
-                int elapsed = 0;
-
-                public void run() {
-                    elapsed++;
-                    SwingUtilities.invokeLater(() -> {
-                        timerProgress.setValue(elapsed);
-                        timerRemaining.setText(formatSeconds(Math.max(0, countdownSeconds - elapsed)));
-                    });
-                    if (elapsed >= countdownSeconds) {
-                        SwingUtilities.invokeLater(() -> {
-                            notifyUser("Timer finished");
-                            playSound(timerSoundPath);
-                        });
-                        countdownTimer.cancel();
-                    }
-                }
-            }, 1000, 1000);
-            notifyUser("Timer started for " + seconds + "s");
-        } catch (NumberFormatException ex) {
-            notifyUser("Enter a valid integer");
-        }
-    }
-
-    // Stopwatch logic
-    private void startStopwatch() {
-        if (stopwatchRunning) return;
-        stopwatchStart = System.currentTimeMillis();
-        stopwatchRunning = true;
-        stopwatchTimer = new Timer(true);
-        stopwatchTimer.scheduleAtFixedRate(new TimerTask() {
-            public void run() {
-                long elapsed = System.currentTimeMillis() - stopwatchStart;
-                SwingUtilities.invokeLater(() -> stopwatchLabel.setText(formatStopwatch(elapsed)));
-            }
-        }, 0, 50);
-        playSound(stopwatchClickPath);
-    }
-
-    private void stopStopwatch() {
-        if (!stopwatchRunning) return;
-        stopwatchRunning = false;
-        if (stopwatchTimer != null) stopwatchTimer.cancel();
-        playSound(stopwatchClickPath);
-    }
-
-    private void lapStopwatch() {
-        if (!stopwatchRunning) return;
-        long elapsed = System.currentTimeMillis() - stopwatchStart;
-        lapModel.addElement("Lap " + (lapModel.getSize() + 1) + " " + formatStopwatch(elapsed));
-    }
-
-    private void resetStopwatch() {
-        stopwatchRunning = false;
-        if (stopwatchTimer != null) stopwatchTimer.cancel();
-        stopwatchLabel.setText("00:00.00");
-        lapModel.clear();
-        playSound(stopwatchResetPath);
-    }
-
-    // Utilities
-    private String formatSeconds(int s) {
-        int mm = s / 60;
-        int ss = s % 60;
-        return String.format("%02d:%02d", mm, ss);
-    }
-
-    private String formatStopwatch(long ms) {
-        int centis = (int) ((ms % 1000) / 10);
-        int seconds = (int) (ms / 1000) % 60;
-        int minutes = (int) (ms / 60000);
-        return String.format("%02d:%02d.%02d", minutes, seconds, centis);
-    }
-
-    private void notifyUser(String message) {
-        final JDialog d = new JDialog(this, false);
-        d.setUndecorated(true);
-
-        JLabel l = new JLabel(message, SwingConstants.CENTER);
-        l.setBorder(new EmptyBorder(10, 18, 10, 18));
-        l.setBackground(new Color(40, 44, 50));
-        l.setForeground(Color.WHITE);
-        l.setOpaque(true);
-        d.add(l);
-        d.pack();
-        d.setLocationRelativeTo(this);
-        d.setLocation(d.getX(), d.getY() - 80);
-        d.setVisible(true);
-        new java.util.Timer().schedule(new TimerTask() {
-            public void run() {
-                SwingUtilities.invokeLater(d::dispose);
-            }
-        }, 1400);
-    }
-
-    /**
-     * Play sound using AudioSystem (WAV/AIFF/AU). Prints diagnostics if file missing or unsupported.
-     */
-    private void playSound(String path) {
-        if (path == null || path.isEmpty()) return;
-        File f = new File(path);
-        System.out.println("Attempting to play: " + f.getAbsolutePath());
-        if (!f.exists()) {
-            System.err.println("Sound file not found: " + f.getAbsolutePath());
-            return;
-        }
-        try (AudioInputStream ais = AudioSystem.getAudioInputStream(f)) {
-            Clip clip = AudioSystem.getClip();
-            clip.open(ais);
-            clip.addLineListener(evt -> {
-                if (evt.getType() == LineEvent.Type.STOP) {
-                    clip.close();
-                    activeClips.remove(clip);
-                }
-            });
-            activeClips.add(clip);
-            clip.start();
-        } catch (Exception ex) {
-            System.err.println("Audio playback failed for: " + f.getAbsolutePath());
-            ex.printStackTrace();
-        }
-    }
-
-    // File chooser helper
-    private String chooseAudioFile(String currentPath) {
-        JFileChooser chooser = new JFileChooser();
-        chooser.setDialogTitle("Select audio file");
-        chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
-        FileNameExtensionFilter filter =
-                new FileNameExtensionFilter("Audio files (wav, aiff, au, mp3)", "wav", "aiff", "au", "mp3");
-        chooser.setFileFilter(filter);
-        if (currentPath != null) {
-            File cur = new File(currentPath);
-            if (cur.exists()) chooser.setSelectedFile(cur);
-        }
-        int res = chooser.showOpenDialog(this);
-        if (res == JFileChooser.APPROVE_OPTION) {
-            File f = chooser.getSelectedFile();
-            return f.getAbsolutePath();
-        }
-        return null;
-    }
-
-    private void loadSavedAudioPaths() {
-        alarmSoundPath = prefs.get(PREF_ALARM, alarmSoundPath);
-        timerSoundPath = prefs.get(PREF_TIMER, timerSoundPath);
-        stopwatchClickPath = prefs.get(PREF_STOPWATCH_CLICK, stopwatchClickPath);
-        stopwatchResetPath = prefs.get(PREF_STOPWATCH_RESET, stopwatchResetPath);
-    }
-
-    // Rounded panel helper
-    static class RoundedPanel extends JPanel {
-        private final Color bg;
-        private final int radius;
-
-        RoundedPanel(Color bg, int radius) {
-            this.bg = bg;
-            this.radius = radius;
-            setOpaque(false);
-        }
-
-        @Override
-        protected void paintComponent(Graphics g) {
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                    RenderingHints.VALUE_ANTIALIAS_ON);
-            g2.setColor(bg);
-            g2.fill(new RoundRectangle2D.Double(0, 0, getWidth(), getHeight(), radius, radius));
-            g2.dispose();
-            super.paintComponent(g);
-        }
-    }
-
-    // Vector icons
-    static class NavIcon implements Icon {
-        enum Type {ALARM, TIMER, STOPWATCH}
-
-        private final Type type;
-        private final int size;
-        private final Color color;
-
-        NavIcon(Type type, int size, Color color) {
-            this.type = type;
-            this.size = size;
-            this.color = color;
-        }
-
-        @Override
-        public void paintIcon(Component c, Graphics g, int x, int y) {
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                    RenderingHints.VALUE_ANTIALIAS_ON);
-            g2.setColor(color);
-            switch (type) {
-                case ALARM:
-                    g2.fillOval(x + 2, y + 2, size - 4, size - 6);
-                    g2.fillRect(x + size / 3, y + size / 2, size / 3, size / 3);
-                    break;
-                case TIMER:
-                    g2.fillOval(x + 2, y + 2, size - 4, size - 4);
-                    g2.fillRect(x + size / 2 - 2, y - 2, 4, 6);
-                    break;
-                case STOPWATCH:
-                    int[] xs = {x + 2, x + size - 2, x + 2};
-                    int[] ys = {y + 2, y + size / 2, y + size - 2};
-                    g2.fillPolygon(xs, ys, 3);
-                    break;
-            }
-            g2.dispose();
-        }
-
-        @Override
-        public int getIconWidth() {
-            return size;
-        }
-
-        @Override
-        public int getIconHeight() {
-            return size;
-        }
-    }
-
-    static class PlayIcon implements Icon {
-        private final int size;
-        private final Color color;
-
-        PlayIcon(int size, Color color) {
-            this.size = size;
-            this.color = color;
-        }
-
-        @Override
-        public void paintIcon(Component c, Graphics g, int x, int y) {
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                    RenderingHints.VALUE_ANTIALIAS_ON);
-            int[] xs = {x + 2, x + size - 2, x + 2};
-            int[] ys = {y + 2, y + size / 2, y + size - 2};
-            g2.setColor(color);
-            g2.fillPolygon(xs, ys, 3);
-            g2.dispose();
-        }
-
-        @Override
-        public int getIconWidth() {
-            return size;
-        }
-
-        @Override
-        public int getIconHeight() {
-            return size;
-        }
-    }
-
-    static class StopIcon implements Icon {
-        private final int size;
-        private final Color color;
-
-        StopIcon(int size, Color color) {
-            this.size = size;
-            this.color = color;
-        }
-
-        @Override
-        public void paintIcon(Component c, Graphics g, int x, int y) {
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                    RenderingHints.VALUE_ANTIALIAS_ON);
-            int pad = 3;
-            g2.setColor(color);
-            g2.fillRect(x + pad, y + pad, size - pad * 2, size - pad * 2);
-            g2.dispose();
-        }
-
-        @Override
-        public int getIconWidth() {
-            return size;
-        }
-
-        @Override
-        public int getIconHeight() {
-            return size;
-        }
-    }
-
-    static class FlagIcon implements Icon {
-        private final int size;
-        private final Color color;
-
-        FlagIcon(int size, Color color) {
-            this.size = size;
-            this.color = color;
-        }
-
-        @Override
-        public void paintIcon(Component c, Graphics g, int x, int y) {
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                    RenderingHints.VALUE_ANTIALIAS_ON);
-            g2.setColor(color);
-            int poleX = x + 6;
-            g2.fillRect(poleX, y + 2, 2, size - 4);
-            int[] xs = {poleX + 2, x + size - 2, poleX + 2};
-            int[] ys = {y + 4, y + 8, y + 12};
-            g2.fillPolygon(xs, ys, 3);
-            g2.dispose();
-        }
-
-        @Override
-        public int getIconWidth() {
-            return size;
-        }
-
-        @Override
-        public int getIconHeight() {
-            return size;
-        }
-    }
-
-    static class ResetIcon implements Icon {
-        private final int size;
-        private final Color color;
-
-        ResetIcon(int size, Color color) {
-            this.size = size;
-            this.color = color;
-        }
-
-        @Override
-        public void paintIcon(Component c, Graphics g, int x, int y) {
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                    RenderingHints.VALUE_ANTIALIAS_ON);
-            g2.setStroke(new BasicStroke(2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            g2.setColor(color);
-            int cx = x + size / 2, cy = y + size / 2, r = size / 2 - 4;
-            g2.drawArc(cx - r, cy - r, r * 2, r * 2, 30, 300);
-            int[] px = {x + size - 8, x + size - 2, x + size - 8};
-            int[] py = {y + 6, y + 10, y + 14};
-            g2.fillPolygon(px, py, 3);
-            g2.dispose();
-        }
-
-        @Override
-        public int getIconWidth() {
-            return size;
-        }
-
-        @Override
-        public int getIconHeight() {
-            return size;
-        }
-    }
-
-    // Main
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(ElegantMinimalClockDark::new);
-    }
+package clock;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * ElegantMinimalClockDark
+ * Swing front end for ClockEngine - dark theme, top navigation, time section,
+ * Alarm / Timer / Stopwatch panels, and an Audio selection panel to choose
+ * custom files for each sound. All timing and sound lives in the engine.
+ */
+public class ElegantMinimalClockDark extends JFrame {
+    // Time formatters
+    private final DateTimeFormatter dayFmt = DateTimeFormatter.ofPattern("EEE");
+    private final DateTimeFormatter dateFmt = DateTimeFormatter.ofPattern("dd");
+    private final DateTimeFormatter monthFmt = DateTimeFormatter.ofPattern("MMM");
+
+    // Time UI
+    private final TimeLabel bigTimeLabel = new TimeLabel("00:00:00 AM");
+    private final JLabel weekdayLabel = new JLabel("", SwingConstants.LEFT);
+    private final JLabel dayLabel = new JLabel("", SwingConstants.CENTER);
+    private final JLabel dateLabel = new JLabel("", SwingConstants.CENTER);
+    private final JLabel monthLabel = new JLabel("", SwingConstants.CENTER);
+    private final char[] clockChars = new char[TimeFormat.MAX_LENGTH];
+    private final Runnable clockRender = this::renderClock;
+    private volatile int clockSecondOfDay;
+    // Set when the time must be redrawn even if the second has not changed
+    private volatile boolean clockRedraw = true;
+    private LocalDate lastClockDate;
+    private final Object clockLock = new Object();
+    private int clockGeneration; // guarded by clockLock; bumping it ends the current tick chain
+    private TickScheduler.Handle clockTimer;
+
+    // Alarm
+    private final JTextField alarmField = new JTextField();
+    // Weekly and monthly repeat on the weekday / day of month of the first occurrence
+    private final JComboBox<String> alarmRepeat = new JComboBox<>(
+            new String[]{"Once", "Daily", "Weekdays", "Weekends", "Weekly", "Monthly"});
+
+    // Timer
+    private final JTextField timerNameField = new JTextField();
+    private final JTextField timerField = new JTextField();
+    private final JPanel timerRowsPanel = new JPanel();
+    private final Map<Long, CountdownRow> timerRows = new HashMap<>();
+    private final Runnable timerRender = this::renderTimers;
+    private final AtomicBoolean timerRenderPending = new AtomicBoolean();
+
+    // Stopwatch
+    private final TimeLabel stopwatchLabel = new TimeLabel("00:00.00");
+    private final char[] stopwatchChars = new char[TimeFormat.MAX_LENGTH];
+    private final Runnable stopwatchRender = this::renderStopwatch;
+    private final AtomicBoolean stopwatchRenderPending = new AtomicBoolean();
+    private volatile TickScheduler.Handle stopwatchTimer;
+    private RenderGovernor.Mode stopwatchMode = RenderGovernor.Mode.FULL;
+    // View of the engine's laps; catches up on the EDT after each lap or reset
+    private final LapListModel lapModel;
+    private final JLabel lapStats = new JLabel(" ", SwingConstants.LEFT);
+    // Navigation buttons (top)
+    private final JButton navAlarm = new JButton();
+    private final JButton navTimer = new JButton();
+    private final JButton navStopwatch = new JButton();
+    private final JButton navAudio = new JButton();
+
+    // Timing core; this frame is one of its subscribers
+    private final ClockEngine engine;
+    private final TickScheduler scheduler;
+    private final StopwatchCore stopwatch;
+    private final CountdownTimers countdowns;
+
+    // Card layout container; each card is built the first time it is shown
+    private final JPanel cardsPanel = new JPanel(new CardLayout());
+    private final Map<String, Supplier<JPanel>> cardBuilders = new HashMap<>();
+
+    // Refresh policy for the live displays
+    private final RenderGovernor governor = new RenderGovernor();
+    // Notifications, drawn in the frame's popup layer
+    private final ToastManager toasts;
+
+    public ElegantMinimalClockDark(ClockEngine engine) {
+        this.engine = engine;
+        this.scheduler = engine.scheduler();
+        this.stopwatch = engine.stopwatch();
+        this.countdowns = engine.countdowns();
+        this.lapModel = new LapListModel(engine.laps());
+        this.toasts = new ToastManager(getLayeredPane(), scheduler);
+        setTitle("Elegant Clock - Dark");
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        setSize(920, 620);
+        setLocationRelativeTo(null);
+
+        JPanel root = new JPanel(new BorderLayout(16, 16)) {
+            @Override
+            protected void paintChildren(Graphics g) {
+                super.paintChildren(g);
+                StartupBenchmark.firstFramePainted();
+            }
+        };
+        root.setBackground(new Color(18, 20, 23));
+        root.setBorder(new EmptyBorder(16, 16, 16, 16));
+        setContentPane(root);
+
+        JPanel topColumn = new JPanel(new BorderLayout(12, 12));
+        topColumn.setOpaque(false);
+        topColumn.add(buildTimeSection(), BorderLayout.NORTH);
+        topColumn.add(buildNavBar(), BorderLayout.SOUTH);
+        root.add(topColumn, BorderLayout.NORTH);
+
+        cardBuilders.put("ALARM", this::buildAlarmPanel);
+        cardBuilders.put("TIMER", this::buildTimerPanel);
+        cardBuilders.put("STOPWATCH", this::buildStopwatchPanel);
+        cardBuilders.put("AUDIO", this::buildAudioPanel);
+        showCard("ALARM");
+
+        root.add(cardsPanel, BorderLayout.CENTER);
+
+        engine.addListener(new EngineEvents());
+        engine.loadSavedSounds();
+        governor.register(null, this::clockModeChanged);
+        governor.register("TIMER", this::timerModeChanged);
+        governor.register("STOPWATCH", this::stopwatchModeChanged);
+        governor.attach(this);
+        setActiveNav(navAlarm);
+        setVisible(true);
+    }
+
+    // Time section
+    private JPanel buildTimeSection() {
+        RoundedPanel card = new RoundedPanel(new Color(28, 30, 34), 14);
+        card.setLayout(new BorderLayout(10, 10));
+        card.setBorder(new EmptyBorder(12, 12, 12, 12));
+        weekdayLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        weekdayLabel.setForeground(new Color(160, 170, 180));
+        card.add(weekdayLabel, BorderLayout.NORTH);
+
+        bigTimeLabel.setFont(new Font("Segoe UI", Font.BOLD, 56));
+        bigTimeLabel.setForeground(new Color(220, 230, 240));
+        card.add(bigTimeLabel, BorderLayout.CENTER);
+
+        JPanel infoRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 0));
+        infoRow.setOpaque(false);
+
+        dayLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        dayLabel.setForeground(new Color(230, 230, 230));
+        dateLabel.setFont(new Font("Segoe UI", Font.BOLD, 20));
+        dateLabel.setForeground(new Color(240, 240, 240));
+        monthLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        monthLabel.setForeground(new Color(180, 190, 200));
+        infoRow.add(makeInfoCard("DAY", dayLabel));
+        infoRow.add(makeInfoCard("DATE", dateLabel));
+        infoRow.add(makeInfoCard("MONTH", monthLabel));
+        card.add(infoRow, BorderLayout.SOUTH);
+
+        return card;
+    }
+
+    private JPanel makeInfoCard(String title, JLabel valueLabel) {
+        RoundedPanel p = new RoundedPanel(new Color(22, 24, 28), 12);
+        p.setLayout(new BorderLayout());
+        p.setPreferredSize(new Dimension(120, 64));
+        p.setBorder(new EmptyBorder(8, 10, 8, 10));
+
+        JLabel t = new JLabel(title, SwingConstants.CENTER);
+        t.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        t.setForeground(new Color(140, 150, 160));
+        p.add(t, BorderLayout.NORTH);
+        valueLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        p.add(valueLabel, BorderLayout.CENTER);
+
+        return p;
+    }
+
+    // Top navigation bar
+    private JPanel buildNavBar() {
+        RoundedPanel navBar = new RoundedPanel(new Color(24, 26, 30), 12);
+        navBar.setLayout(new FlowLayout(FlowLayout.CENTER, 24, 12));
+        navBar.setBorder(new EmptyBorder(8, 8, 8, 8));
+        Font navFont = new Font("Segoe UI", Font.BOLD, 18);
+        Color fg = new Color(220, 220, 220);
+        Color bg = new Color(28, 30, 34);
+
+        configureNavButton(navAlarm, "Alarm", new NavIcon(NavIcon.Type.ALARM, 18, new Color(160, 200, 255)), navFont, fg, bg);
+        configureNavButton(navTimer, "Timer", new NavIcon(NavIcon.Type.TIMER, 18, new Color(160, 200, 255)), navFont, fg, bg);
+        configureNavButton(navStopwatch, "Stopwatch", new NavIcon(NavIcon.Type.STOPWATCH, 18, new Color(160, 200, 255)), navFont, fg, bg);
+        configureNavButton(navAudio, "Audio", new NavIcon(NavIcon.Type.TIMER, 18, new Color(160, 200, 255)), navFont, fg, bg);
+
+        navAlarm.addActionListener((ActionEvent e) -> {
+            showCard("ALARM");
+            setActiveNav(navAlarm);
+        });
+        navTimer.addActionListener((ActionEvent e) -> {
+            showCard("TIMER");
+            setActiveNav(navTimer);
+        });
+        navStopwatch.addActionListener((ActionEvent e) -> {
+            showCard("STOPWATCH");
+            setActiveNav(navStopwatch);
+        });
+        navAudio.addActionListener((ActionEvent e) -> {
+            showCard("AUDIO");
+            setActiveNav(navAudio);
+        });
+
+        navBar.add(navAlarm);
+        navBar.add(navTimer);
+        navBar.add(navStopwatch);
+        navBar.add(navAudio);
+
+        return navBar;
+    }
+
+    private void configureNavButton(JButton b, String text, Icon icon, Font font, Color fg, Color bg) {
+        b.setText(text);
+        b.setIcon(icon);
+        b.setHorizontalTextPosition(SwingConstants.RIGHT);
+        b.setIconTextGap(10);
+        b.setFont(font);
+        b.setForeground(fg);
+        b.setBackground(bg);
+        b.setFocusPainted(false);
+        b.setBorderPainted(false);
+        b.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        b.setPreferredSize(new Dimension(200, 52));
+    }
+
+    // Ensure this method exists and is used by nav actions
+    private void setActiveNav(JButton active) {
+        Color activeBg = new Color(60, 130, 255);
+        Color activeFg = Color.WHITE;
+        Color inactiveBg = new Color(28, 30, 34);
+        Color inactiveFg = new Color(200, 200, 200);
+
+        JButton[] all = {navAlarm, navTimer, navStopwatch, navAudio};
+        for (JButton b : all) {
+            if (b == active) {
+                b.setBackground(activeBg);
+                b.setForeground(activeFg);
+                b.setBorder(BorderFactory.createLineBorder(new Color(90, 160, 255), 2));
+            } else {
+                b.setBackground(inactiveBg);
+                b.setForeground(inactiveFg);
+                b.setBorder(BorderFactory.createEmptyBorder(2, 2, 2, 2));
+            }
+        }
+    }
+
+    private void showCard(String name) {
+        Supplier<JPanel> builder = cardBuilders.remove(name);
+        if (builder != null) cardsPanel.add(builder.get(), name);
+        CardLayout cl = (CardLayout) cardsPanel.getLayout();
+        cl.show(cardsPanel, name);
+        governor.cardShown(name);
+    }
+
+    // Panels for Alarm / Timer / Stopwatch
+
+    private JPanel buildAlarmPanel() {
+        JPanel p = new RoundedPanel(new Color(24, 26, 30), 12);
+        p.setLayout(new GridBagLayout());
+        p.setBorder(new EmptyBorder(14, 14, 14, 14));
+        GridBagConstraints c = new GridBagConstraints();
+        c.insets = new Insets(8, 8, 8, 8);
+        c.fill = GridBagConstraints.HORIZONTAL;
+
+        JLabel lbl = new JLabel("Alarm time (HH:MM AM/PM)");
+        lbl.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        lbl.setForeground(new Color(200, 200, 200));
+        c.gridx = 0;
+        c.gridy = 0;
+        c.gridwidth = 2;
+        p.add(lbl, c);
+
+        alarmField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        alarmField.setBackground(new Color(34, 36, 40));
+        alarmField.setForeground(new Color(220, 220, 220));
+        c.gridy = 1;
+        c.gridwidth = 1;
+        c.weightx = 1.0;
+        p.add(alarmField, c);
+
+        JButton setBtn = flatButton("Set Alarm");
+        setBtn.addActionListener(e -> setAlarm());
+        c.gridx = 1;
+        c.weightx = 0;
+        p.add(setBtn, c);
+
+        alarmRepeat.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        alarmRepeat.setBackground(new Color(34, 36, 40));
+        alarmRepeat.setForeground(new Color(220, 220, 220));
+        c.gridx = 0;
+        c.gridy = 2;
+        c.weightx = 1.0;
+        p.add(alarmRepeat, c);
+
+        JLabel hint = new JLabel("Sound file used: " + engine.sound(AudioDispatcher.Channel.ALARM), SwingConstants.LEFT);
+        hint.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        hint.setForeground(new Color(150, 160, 170));
+        c.gridx = 0;
+        c.gridy = 3;
+        c.gridwidth = 2;
+        p.add(hint, c);
+
+        return p;
+    }
+
+    private JPanel buildTimerPanel() {
+        JPanel p = new RoundedPanel(new Color(24, 26, 30), 12);
+        p.setLayout(new GridBagLayout());
+        p.setBorder(new EmptyBorder(14, 14, 14, 14));
+        GridBagConstraints c = new GridBagConstraints();
+        c.insets = new Insets(8, 8, 8, 8);
+        c.fill = GridBagConstraints.HORIZONTAL;
+        JLabel nameLbl = new JLabel("Name");
+        nameLbl.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        nameLbl.setForeground(new Color(200, 200, 200));
+        c.gridx = 0;
+        c.gridy = 0;
+        p.add(nameLbl, c);
+
+        JLabel lbl = new JLabel("Timer seconds");
+        lbl.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        lbl.setForeground(new Color(200, 200, 200));
+        c.gridx = 1;
+        c.gridwidth = 2;
+        p.add(lbl, c);
+
+        for (JTextField f : new JTextField[]{timerNameField, timerField}) {
+            f.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+            f.setBackground(new Color(34, 36, 40));
+            f.setForeground(new Color(220, 220, 220));
+        }
+        c.gridx = 0;
+        c.gridy = 1;
+        c.gridwidth = 1;
+        c.weightx = 0.5;
+        p.add(timerNameField, c);
+        c.gridx = 1;
+        p.add(timerField, c);
+
+        JButton start = flatButton("Start");
+        start.addActionListener(e -> startTimer());
+        timerField.addActionListener(e -> startTimer());
+        c.gridx = 2;
+        c.weightx = 0;
+        p.add(start, c);
+
+        timerRowsPanel.setLayout(new BoxLayout(timerRowsPanel, BoxLayout.Y_AXIS));
+        timerRowsPanel.setOpaque(false);
+        JPanel rowsHolder = new JPanel(new BorderLayout());
+        rowsHolder.setOpaque(false);
+        rowsHolder.add(timerRowsPanel, BorderLayout.NORTH);
+        JScrollPane rowsScroll = new JScrollPane(rowsHolder);
+        rowsScroll.setBorder(null);
+        rowsScroll.setOpaque(false);
+        rowsScroll.getViewport().setOpaque(false);
+        rowsScroll.setPreferredSize(new Dimension(420, 180));
+        c.gridx = 0;
+        c.gridy = 2;
+        c.gridwidth = 3;
+        c.weightx = 1.0;
+        c.weighty = 1.0;
+        c.fill = GridBagConstraints.BOTH;
+        p.add(rowsScroll, c);
+
+        JLabel hint = new JLabel("Sound file used: " + engine.sound(AudioDispatcher.Channel.TIMER), SwingConstants.LEFT);
+        hint.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        hint.setForeground(new Color(150, 160, 170));
+        c.gridy = 3;
+        c.weighty = 0;
+        c.fill = GridBagConstraints.HORIZONTAL;
+        p.add(hint, c);
+
+        return p;
+    }
+
+    private JPanel buildStopwatchPanel() {
+        JPanel p = new RoundedPanel(new Color(24, 26, 30), 12);
+        p.setLayout(new BorderLayout(8, 8));
+        p.setBorder(new EmptyBorder(14, 14, 14, 14));
+
+        stopwatchLabel.setFont(new Font("Segoe UI", Font.BOLD, 28));
+        stopwatchLabel.setForeground(new Color(220, 220, 220));
+        JPanel header = new JPanel(new BorderLayout(4, 4));
+        header.setOpaque(false);
+        header.add(stopwatchLabel, BorderLayout.CENTER);
+        p.add(header, BorderLayout.NORTH);
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 6));
+        controls.setOpaque(false);
+
+        JButton playBtn = iconButton(new PlayIcon(18, new Color(220, 220, 220)), "Start");
+        JButton stopBtn = iconButton(new StopIcon(16, new Color(220, 220, 220)), "Stop");
+        JButton lapBtn = iconButton(new FlagIcon(16, new Color(220, 220, 220)), "Lap");
+        JButton resetBtn = iconButton(new ResetIcon(18, new Color(220, 220, 220)), "Reset");
+        playBtn.addActionListener(e -> startStopwatch());
+        stopBtn.addActionListener(e -> stopStopwatch());
+        lapBtn.addActionListener(e -> lapStopwatch());
+        resetBtn.addActionListener(e -> resetStopwatch());
+        controls.add(playBtn);
+        controls.add(stopBtn);
+        controls.add(lapBtn);
+        controls.add(resetBtn);
+        JButton historyBtn = flatButton("History");
+        historyBtn.addActionListener(e -> new SessionHistoryDialog(this, engine::sessionLog, engine.sessionIo()).setVisible(true));
+        controls.add(historyBtn);
+
+        p.add(controls, BorderLayout.CENTER);
+
+        JList<String> lapList = new JList<>(lapModel);
+        lapList.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        lapList.setForeground(new Color(200, 200, 200));
+        lapList.setBackground(new Color(28, 30, 34));
+        lapList.setVisibleRowCount(4);
+        // Fixed row size so the list only ever formats the rows it paints
+        lapList.setFixedCellHeight(20);
+        lapList.setFixedCellWidth(320);
+        lapList.setCellRenderer(new LapListModel.Renderer(lapModel.laps(),
+                new Color(120, 220, 140), new Color(255, 120, 110)));
+        JScrollPane sp = new JScrollPane(lapList);
+        sp.setBorder(null);
+        sp.setPreferredSize(new Dimension(0, 120));
+        lapStats.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        lapStats.setForeground(new Color(150, 160, 170));
+        JPanel lapsPanel = new JPanel(new BorderLayout(4, 4));
+        lapsPanel.setOpaque(false);
+        lapsPanel.add(lapStats, BorderLayout.NORTH);
+        lapsPanel.add(sp, BorderLayout.CENTER);
+        p.add(lapsPanel, BorderLayout.SOUTH);
+
+        JLabel hint = new JLabel("Sounds: " + engine.sound(AudioDispatcher.Channel.CLICK)
+                + " | " + engine.sound(AudioDispatcher.Channel.RESET), SwingConstants.LEFT);
+        hint.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        hint.setForeground(new Color(150, 160, 170));
+        header.add(hint, BorderLayout.SOUTH);
+
+        return p;
+    }
+
+    // Audio selection panel
+    private JPanel buildAudioPanel() {
+        JPanel p = new RoundedPanel(new Color(24, 26, 30), 12);
+        p.setLayout(new GridBagLayout());
+        p.setBorder(new EmptyBorder(14, 14, 14, 14));
+        GridBagConstraints c = new GridBagConstraints();
+        c.insets = new Insets(8, 8, 8, 8);
+        c.fill = GridBagConstraints.HORIZONTAL;
+        c.gridx = 0;
+        c.gridy = 0;
+        c.gridwidth = 2;
+
+        JLabel title = new JLabel("Select audio files", SwingConstants.LEFT);
+        title.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        title.setForeground(new Color(220, 220, 220));
+        p.add(title, c);
+
+        // Alarm row
+        c.gridy++;
+        c.gridwidth = 1;
+        JLabel alarmLbl = new JLabel("Alarm:");
+        alarmLbl.setForeground(new Color(200, 200, 200));
+        p.add(alarmLbl, c);
+
+        JButton alarmChoose = flatButton("Choose...");
+        alarmChoose.addActionListener(e -> {
+            String chosen = chooseAudioFile(engine.sound(AudioDispatcher.Channel.ALARM));
+            if (chosen != null) {
+                engine.setSound(AudioDispatcher.Channel.ALARM, chosen);
+                notifyUser("Alarm sound set");
+            }
+        });
+        c.gridx = 1;
+        p.add(alarmChoose, c);
+
+        // Timer row
+        c.gridx = 0;
+        c.gridy++;
+        JLabel timerLbl = new JLabel("Timer:");
+        timerLbl.setForeground(new Color(200, 200, 200));
+        p.add(timerLbl, c);
+
+        JButton timerChoose = flatButton("Choose...");
+        timerChoose.addActionListener(e -> {
+            String chosen = chooseAudioFile(engine.sound(AudioDispatcher.Channel.TIMER));
+            if (chosen != null) {
+                engine.setSound(AudioDispatcher.Channel.TIMER, chosen);
+                notifyUser("Timer sound set");
+            }
+        });
+        c.gridx = 1;
+        p.add(timerChoose, c);
+
+        // Stopwatch click row
+        c.gridx = 0;
+        c.gridy++;
+        JLabel clickLbl = new JLabel("Stopwatch click:");
+        clickLbl.setForeground(new Color(200, 200, 200));
+        p.add(clickLbl, c);
+
+        JButton clickChoose = flatButton("Choose...");
+        clickChoose.addActionListener(e -> {
+            String chosen = chooseAudioFile(engine.sound(AudioDispatcher.Channel.CLICK));
+            if (chosen != null) {
+                engine.setSound(AudioDispatcher.Channel.CLICK, chosen);
+                notifyUser("Stopwatch click sound set");
+            }
+        });
+        c.gridx = 1;
+        p.add(clickChoose, c);
+
+        // Stopwatch reset row
+        c.gridx = 0;
+        c.gridy++;
+        JLabel resetLbl = new JLabel("Stopwatch reset:");
+        resetLbl.setForeground(new Color(200, 200, 200));
+        p.add(resetLbl, c);
+
+        JButton resetChoose = flatButton("Choose...");
+        resetChoose.addActionListener(e -> {
+            String chosen = chooseAudioFile(engine.sound(AudioDispatcher.Channel.RESET));
+            if (chosen != null) {
+                engine.setSound(AudioDispatcher.Channel.RESET, chosen);
+                notifyUser("Stopwatch reset sound set");
+            }
+        });
+        c.gridx = 1;
+        p.add(resetChoose, c);
+
+        return p;
+    }
+
+    // Helpers
+    private JButton flatButton(String text) {
+        JButton b = new JButton(text);
+        b.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        b.setBackground(new Color(60, 65, 75));
+        b.setForeground(new Color(230, 230, 230));
+        b.setFocusPainted(false);
+        b.setBorderPainted(false);
+        b.setPreferredSize(new Dimension(110, 36));
+        b.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        return b;
+    }
+
+    private JButton iconButton(Icon icon, String tooltip) {
+        JButton b = new JButton(icon);
+        b.setPreferredSize(new Dimension(44, 36));
+        b.setBackground(new Color(28, 30, 34));
+        b.setFocusPainted(false);
+        b.setBorder(BorderFactory.createEmptyBorder());
+        b.setToolTipText(tooltip);
+        b.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        return b;
+    }
+
+    // Clock updater: one tick per second, woken on the second boundary.
+    // The date labels are only reformatted on rollover and the EDT is only
+    // touched when some text actually changed. Suspended while iconified.
+    private void clockModeChanged(RenderGovernor.Mode mode) {
+        synchronized (clockLock) {
+            int generation = ++clockGeneration;
+            clockTimer = TickScheduler.cancel(clockTimer);
+            if (mode == RenderGovernor.Mode.SUSPENDED) return;
+            // Redraw at once; the time may have moved on while suspended
+            clockRedraw = true;
+            clockTimer = scheduler.schedule(() -> clockTick(generation), 0, TimeUnit.MILLISECONDS,
+                    LatencyMetrics.CLOCK_TICK);
+        }
+    }
+
+    private void clockTick(int generation) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate date = now.toLocalDate();
+        int second = now.toLocalTime().toSecondOfDay();
+        if (!date.equals(lastClockDate)) {
+            lastClockDate = date;
+            String day = now.format(dayFmt).toUpperCase();
+            String dd = now.format(dateFmt);
+            String month = now.format(monthFmt).toUpperCase();
+            SwingUtilities.invokeLater(() -> {
+                weekdayLabel.setText(day);
+                dayLabel.setText(day);
+                dateLabel.setText(dd);
+                monthLabel.setText(month);
+            });
+        }
+        if (second != clockSecondOfDay || clockRedraw) {
+            clockRedraw = false;
+            clockSecondOfDay = second;
+            SwingUtilities.invokeLater(LatencyMetrics.queued(clockRender));
+        }
+        long delay = 1000 - System.currentTimeMillis() % 1000;
+        synchronized (clockLock) {
+            if (generation != clockGeneration) return;
+            clockTimer = scheduler.schedule(() -> clockTick(generation), delay, TimeUnit.MILLISECONDS,
+                    LatencyMetrics.CLOCK_TICK);
+        }
+    }
+
+    private void renderClock() {
+        int s = clockSecondOfDay;
+        bigTimeLabel.setChars(clockChars, TimeFormat.clock(s / 3600, s / 60 % 60, s % 60, clockChars));
+    }
+
+    // Alarm logic
+    private void setAlarm() {
+        String text = alarmField.getText().trim();
+        if (text.isEmpty()) {
+            notifyUser("Enter alarm time like 08:30 PM");
+            return;
+        }
+        try {
+            DateTimeFormatter parseFmt = DateTimeFormatter.ofPattern("hh:mm a");
+            LocalTime alarmTime = LocalTime.parse(text.toUpperCase(), parseFmt);
+            String repeat = (String) alarmRepeat.getSelectedItem();
+            if ("Once".equals(repeat)) {
+                engine.addOneShotAlarm(alarmTime, "Alarm");
+                notifyUser("Alarm set for " + alarmTime.format(parseFmt) + " (" + engine.alarms().size() + " pending)");
+                return;
+            }
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate first = LocalDate.now(zone);
+            if (!alarmTime.isAfter(LocalTime.now(zone))) first = first.plusDays(1);
+            AlarmRule rule;
+            if ("Weekly".equals(repeat)) {
+                rule = AlarmRule.weekly(alarmTime, zone, first.getDayOfWeek());
+            } else if ("Monthly".equals(repeat)) {
+                rule = AlarmRule.monthly(alarmTime, zone, first.getDayOfMonth());
+            } else {
+                rule = AlarmRule.parse(repeat, alarmTime, zone);
+            }
+            engine.addAlarm(rule, "Alarm");
+            notifyUser("Alarm set: " + rule.describe() + " (" + engine.alarms().size() + " pending)");
+        } catch (Exception ex) {
+            notifyUser("Invalid format. Use HH:MM AM/PM");
+        }
+    }
+
+    // Timer logic: any number of named countdowns, each expiring on its own
+    // deadline; progress frames only request a render and all rows are
+    // redrawn by one EDT runnable
+    private void startTimer() {
+        String t = timerField.getText().trim();
+        if (t.isEmpty()) {
+            notifyUser("Enter seconds");
+            return;
+        }
+        try {
+            int seconds = Integer.parseInt(t);
+            if (seconds <= 0) {
+                notifyUser("Enter a positive number");
+                return;
+            }
+            String name = timerNameField.getText().trim();
+            if (name.isEmpty()) name = "Timer " + (timerRows.size() + 1);
+            engine.startTimer(name, seconds, TimeUnit.SECONDS);
+            timerNameField.setText("");
+            notifyUser(name + " started for " + seconds + "s");
+        } catch (NumberFormatException ex) {
+            notifyUser("Enter a valid integer");
+        }
+    }
+
+    private void addTimerRow(CountdownTimers.Countdown cd) {
+        JButton pause = iconButton(new StopIcon(12, new Color(220, 220, 220)), "Pause");
+        JButton cancel = iconButton(new ResetIcon(14, new Color(220, 220, 220)), "Cancel");
+        CountdownRow row = new CountdownRow(cd, pause, cancel);
+        pause.addActionListener(e -> {
+            if (cd.isPaused()) engine.resumeTimer(cd.id);
+            else engine.pauseTimer(cd.id);
+        });
+        cancel.addActionListener(e -> engine.cancelTimer(cd.id));
+        timerRows.put(cd.id, row);
+        // A restored countdown may start out paused
+        refreshTimerRow(cd.id);
+        timerRowsPanel.add(row);
+        timerRowsPanel.revalidate();
+    }
+
+    // After a pause or resume from any front end
+    private void refreshTimerRow(long id) {
+        CountdownRow row = timerRows.get(id);
+        if (row == null) return;
+        boolean paused = row.countdown.isPaused();
+        row.pause.setIcon(paused ? new PlayIcon(14, new Color(220, 220, 220)) : new StopIcon(12, new Color(220, 220, 220)));
+        row.pause.setToolTipText(paused ? "Resume" : "Pause");
+        row.update(countdowns.now());
+    }
+
+    private void timerModeChanged(RenderGovernor.Mode mode) {
+        countdowns.setWatched(mode != RenderGovernor.Mode.SUSPENDED);
+        if (mode != RenderGovernor.Mode.SUSPENDED) renderTimers();
+    }
+
+    private void requestTimerRender() {
+        if (timerRenderPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(LatencyMetrics.queued(timerRender));
+        }
+    }
+
+    private void renderTimers() {
+        timerRenderPending.set(false);
+        long now = countdowns.now();
+        for (CountdownRow row : timerRows.values()) row.update(now);
+    }
+
+    private void removeTimerRow(long id) {
+        CountdownRow row = timerRows.remove(id);
+        if (row == null) return;
+        timerRowsPanel.remove(row);
+        timerRowsPanel.revalidate();
+        timerRowsPanel.repaint();
+    }
+
+    // Stopwatch logic: the buttons drive the engine; the display follows its events
+    private void startStopwatch() {
+        engine.startStopwatch();
+    }
+
+    private void stopStopwatch() {
+        engine.pauseStopwatch();
+    }
+
+    private void lapStopwatch() {
+        engine.lapStopwatch();
+    }
+
+    private void updateLapStats() {
+        LapStore laps = lapModel.laps();
+        if (laps.size() == 0) {
+            lapStats.setText(" ");
+            return;
+        }
+        lapStats.setText("Last " + formatStopwatch(laps.lastSplit() / 1_000_000)
+                + "   Best " + formatStopwatch(laps.minSplit() / 1_000_000)
+                + "   Worst " + formatStopwatch(laps.maxSplit() / 1_000_000)
+                + "   Mean " + formatStopwatch(laps.meanSplit() / 1_000_000));
+    }
+
+    private void resetStopwatch() {
+        engine.resetStopwatch();
+    }
+
+    private void stopwatchChanged(StopwatchCore.Snapshot s) {
+        // Also picks up laps restored before this frame subscribed
+        lapModel.sync();
+        updateLapStats();
+        restartStopwatchTicks();
+        requestStopwatchRender();
+    }
+
+    // Utilities
+    private String formatStopwatch(long ms) {
+        return TimeFormat.stopwatch(ms);
+    }
+
+    // 20 fps while in front, 4 fps in an unfocused window, nothing while the
+    // card is hidden or the window iconified; the core keeps exact time regardless
+    private void stopwatchModeChanged(RenderGovernor.Mode mode) {
+        stopwatchMode = mode;
+        restartStopwatchTicks();
+        if (mode != RenderGovernor.Mode.SUSPENDED) requestStopwatchRender();
+    }
+
+    private void restartStopwatchTicks() {
+        stopwatchTimer = TickScheduler.cancel(stopwatchTimer);
+        if (!stopwatch.isRunning() || stopwatchMode == RenderGovernor.Mode.SUSPENDED) return;
+        long period = stopwatchMode == RenderGovernor.Mode.FULL ? 50 : 250;
+        stopwatchTimer = scheduler.scheduleAtFixedRate(this::requestStopwatchRender, 0, period, TimeUnit.MILLISECONDS,
+                LatencyMetrics.STOPWATCH_TICK);
+    }
+
+    // Coalesced: at most one stopwatch render is queued on the EDT at a time
+    private void requestStopwatchRender() {
+        if (stopwatchRenderPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(LatencyMetrics.queued(stopwatchRender));
+        }
+    }
+
+    // Reads one consistent snapshot of the stopwatch state
+    private void renderStopwatch() {
+        stopwatchRenderPending.set(false);
+        long ms = stopwatch.elapsedNanos() / 1_000_000;
+        stopwatchLabel.setChars(stopwatchChars, TimeFormat.stopwatch(ms, stopwatchChars));
+    }
+
+    private void notifyUser(String message) {
+        toasts.show(message);
+    }
+
+    // File chooser helper
+    private String chooseAudioFile(String currentPath) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Select audio file");
+        chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        FileNameExtensionFilter filter =
+                new FileNameExtensionFilter("Audio files (wav, aiff, au, mp3)", "wav", "aiff", "au", "mp3");
+        chooser.setFileFilter(filter);
+        if (currentPath != null) {
+            File cur = new File(currentPath);
+            if (cur.exists()) chooser.setSelectedFile(cur);
+        }
+        int res = chooser.showOpenDialog(this);
+        if (res == JFileChooser.APPROVE_OPTION) {
+            File f = chooser.getSelectedFile();
+            return f.getAbsolutePath();
+        }
+        return null;
+    }
+
+    // Rounded panel helper
+    static class RoundedPanel extends JPanel {
+        private final Color bg;
+        private final int radius;
+
+        RoundedPanel(Color bg, int radius) {
+            this.bg = bg;
+            this.radius = radius;
+            setOpaque(false);
+        }
+
+        // Nine-sliced from cached corner tiles
+        @Override
+        protected void paintComponent(Graphics g) {
+            ShapeCache.fillRoundRect((Graphics2D) g, bg, getWidth(), getHeight(), radius);
+            super.paintComponent(g);
+        }
+    }
+
+    // Vector icons
+    static class NavIcon implements Icon {
+        enum Type {ALARM, TIMER, STOPWATCH}
+
+        private final Type type;
+        private final int size;
+        private final Color color;
+
+        NavIcon(Type type, int size, Color color) {
+            this.type = type;
+            this.size = size;
+            this.color = color;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            ShapeCache.paintIcon(g, type, size, color, x, y, this::draw);
+        }
+
+        private void draw(Graphics2D g2, int x, int y) {
+            switch (type) {
+                case ALARM:
+                    g2.fillOval(x + 2, y + 2, size - 4, size - 6);
+                    g2.fillRect(x + size / 3, y + size / 2, size / 3, size / 3);
+                    break;
+                case TIMER:
+                    g2.fillOval(x + 2, y + 2, size - 4, size - 4);
+                    g2.fillRect(x + size / 2 - 2, y - 2, 4, 6);
+                    break;
+                case STOPWATCH:
+                    int[] xs = {x + 2, x + size - 2, x + 2};
+                    int[] ys = {y + 2, y + size / 2, y + size - 2};
+                    g2.fillPolygon(xs, ys, 3);
+                    break;
+            }
+        }
+
+        @Override
+        public int getIconWidth() {
+            return size;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return size;
+        }
+    }
+
+    static class PlayIcon implements Icon {
+        private final int size;
+        private final Color color;
+
+        PlayIcon(int size, Color color) {
+            this.size = size;
+            this.color = color;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            ShapeCache.paintIcon(g, PlayIcon.class, size, color, x, y, this::draw);
+        }
+
+        private void draw(Graphics2D g2, int x, int y) {
+            int[] xs = {x + 2, x + size - 2, x + 2};
+            int[] ys = {y + 2, y + size / 2, y + size - 2};
+            g2.fillPolygon(xs, ys, 3);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return size;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return size;
+        }
+    }
+
+    static class StopIcon implements Icon {
+        private final int size;
+        private final Color color;
+
+        StopIcon(int size, Color color) {
+            this.size = size;
+            this.color = color;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            ShapeCache.paintIcon(g, StopIcon.class, size, color, x, y, this::draw);
+        }
+
+        private void draw(Graphics2D g2, int x, int y) {
+            int pad = 3;
+            g2.fillRect(x + pad, y + pad, size - pad * 2, size - pad * 2);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return size;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return size;
+        }
+    }
+
+    static class FlagIcon implements Icon {
+        private final int size;
+        private final Color color;
+
+        FlagIcon(int size, Color color) {
+            this.size = size;
+            this.color = color;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            ShapeCache.paintIcon(g, FlagIcon.class, size, color, x, y, this::draw);
+        }
+
+        private void draw(Graphics2D g2, int x, int y) {
+            int poleX = x + 6;
+            g2.fillRect(poleX, y + 2, 2, size - 4);
+            int[] xs = {poleX + 2, x + size - 2, poleX + 2};
+            int[] ys = {y + 4, y + 8, y + 12};
+            g2.fillPolygon(xs, ys, 3);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return size;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return size;
+        }
+    }
+
+    static class ResetIcon implements Icon {
+        private final int size;
+        private final Color color;
+
+        ResetIcon(int size, Color color) {
+            this.size = size;
+            this.color = color;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            ShapeCache.paintIcon(g, ResetIcon.class, size, color, x, y, this::draw);
+        }
+
+        private void draw(Graphics2D g2, int x, int y) {
+            g2.setStroke(new BasicStroke(2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            int cx = x + size / 2, cy = y + size / 2, r = size / 2 - 4;
+            g2.drawArc(cx - r, cy - r, r * 2, r * 2, 30, 300);
+            int[] px = {x + size - 8, x + size - 2, x + size - 8};
+            int[] py = {y + 6, y + 10, y + 14};
+            g2.fillPolygon(px, py, 3);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return size;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return size;
+        }
+    }
+
+    // Engine callbacks arrive on engine threads; everything visible hops to the EDT
+    private final class EngineEvents implements ClockEngine.Listener {
+        @Override
+        public void alarmFired(AlarmStore.Alarm alarm, long lateMillis) {
+            SwingUtilities.invokeLater(LatencyMetrics.queued(() -> notifyUser(alarm.label)));
+        }
+
+        @Override
+        public void timerStarted(CountdownTimers.Countdown countdown) {
+            SwingUtilities.invokeLater(() -> addTimerRow(countdown));
+        }
+
+        @Override
+        public void timersTicked() {
+            requestTimerRender();
+        }
+
+        @Override
+        public void timerFinished(CountdownTimers.Countdown countdown) {
+            SwingUtilities.invokeLater(LatencyMetrics.queued(() -> {
+                removeTimerRow(countdown.id);
+                notifyUser(countdown.name + " finished");
+            }));
+        }
+
+        @Override
+        public void timerPaused(CountdownTimers.Countdown countdown) {
+            SwingUtilities.invokeLater(() -> refreshTimerRow(countdown.id));
+        }
+
+        @Override
+        public void timerResumed(CountdownTimers.Countdown countdown) {
+            SwingUtilities.invokeLater(() -> refreshTimerRow(countdown.id));
+        }
+
+        @Override
+        public void timerCancelled(CountdownTimers.Countdown countdown) {
+            SwingUtilities.invokeLater(() -> removeTimerRow(countdown.id));
+        }
+
+        @Override
+        public void stopwatchChanged(StopwatchCore.Snapshot snapshot) {
+            SwingUtilities.invokeLater(() -> ElegantMinimalClockDark.this.stopwatchChanged(snapshot));
+        }
+
+        @Override
+        public void lapRecorded(int index, long splitNanos, long totalNanos) {
+            SwingUtilities.invokeLater(() -> {
+                lapModel.sync();
+                updateLapStats();
+            });
+        }
+
+        @Override
+        public void message(String text) {
+            SwingUtilities.invokeLater(() -> notifyUser(text));
+        }
+    }
+
+    public static void main(String[] args) {
+        ClockLauncher.main(args);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package clock;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * GlyphAtlas
+ * The characters used by the time displays (digits, colon, dot, space, AM/PM),
+ * rasterized once per font, color and device scale into one translucent image.
+ * Slots are measured in device pixels so drawing a glyph is an unscaled blit.
+ * Digits share one slot width (tabular figures), so the cell layout of a time
+ * string does not move as the digits change.
+ */
+final class GlyphAtlas {
+    static final String CHARS = "0123456789:. APM";
+    private static final int MAX_ATLASES = 16;
+    private static final byte[] INDEX = new byte[128];
+
+    static {
+        Arrays.fill(INDEX, (byte) -1);
+        for (int i = 0; i < CHARS.length(); i++) INDEX[CHARS.charAt(i)] = (byte) i;
+    }
+
+    private static final Map<Key, GlyphAtlas> CACHE = new LinkedHashMap<Key, GlyphAtlas>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, GlyphAtlas> eldest) {
+            return size() > MAX_ATLASES;
+        }
+    };
+
+    private static final class Key {
+        final Font font;
+        final int rgb;
+        final double scale;
+
+        Key(Font font, Color color, double scale) {
+            this.font = font;
+            this.rgb = color.getRGB();
+            this.scale = scale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return rgb == k.rgb && scale == k.scale && font.equals(k.font);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(font, rgb, scale);
+        }
+    }
+
+    final Font font;
+    final Color color;
+    final double scale;
+    final BufferedImage image;
+    /** Slot origin and width of each CHARS entry, in device pixels. */
+    private final int[] slotX = new int[CHARS.length()];
+    private final int[] slotW = new int[CHARS.length()];
+    final int height;
+
+    private GlyphAtlas(Font font, Color color, double scale, GraphicsConfiguration gc) {
+        this.font = font;
+        this.color = color;
+        this.scale = scale;
+        Font deviceFont = font.deriveFont((float) (font.getSize2D() * scale));
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D pg = probe.createGraphics();
+        pg.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        FontMetrics fm = pg.getFontMetrics(deviceFont);
+        pg.dispose();
+
+        int digitW = 0;
+        for (char c = '0'; c <= '9'; c++) digitW = Math.max(digitW, fm.charWidth(c));
+        int x = 0;
+        for (int i = 0; i < CHARS.length(); i++) {
+            char c = CHARS.charAt(i);
+            slotX[i] = x;
+            slotW[i] = Character.isDigit(c) ? digitW : fm.charWidth(c);
+            x += slotW[i];
+        }
+        height = fm.getHeight();
+        int w = Math.max(1, x);
+        image = gc != null ? gc.createCompatibleImage(w, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(w, height, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        g.setFont(deviceFont);
+        g.setColor(color);
+        for (int i = 0; i < CHARS.length(); i++) {
+            char c = CHARS.charAt(i);
+            int gx = slotX[i] + (slotW[i] - fm.charWidth(c)) / 2;
+            g.setClip(slotX[i], 0, slotW[i], height);
+            g.drawString(String.valueOf(c), gx, fm.getAscent());
+        }
+        g.dispose();
+    }
+
+    static synchronized GlyphAtlas get(Font font, Color color, double scale, GraphicsConfiguration gc) {
+        Key k = new Key(font, color, scale);
+        GlyphAtlas a = CACHE.get(k);
+        if (a == null) {
+            a = new GlyphAtlas(font, color, scale, gc);
+            CACHE.put(k, a);
+        }
+        return a;
+    }
+
+    boolean matches(Font font, Color color, double scale) {
+        return this.scale == scale && this.color.equals(color) && this.font.equals(font);
+    }
+
+    /** True if every char of chars[0, len) has a slot. */
+    static boolean covers(char[] chars, int len) {
+        for (int i = 0; i < len; i++) {
+            char c = chars[i];
+            if (c >= 128 || INDEX[c] < 0) return false;
+        }
+        return true;
+    }
+
+    /** Device-pixel width of c's cell; c must be covered. */
+    int width(char c) {
+        return slotW[INDEX[c]];
+    }
+
+    int width(char[] chars, int len) {
+        int w = 0;
+        for (int i = 0; i < len; i++) w += slotW[INDEX[chars[i]]];
+        return w;
+    }
+
+    /** Blits c with its cell's top-left at device pixel (x, y); g must have an identity transform. */
+    void draw(Graphics2D g, char c, int x, int y) {
+        int i = INDEX[c];
+        int sx = slotX[i];
+        int w = slotW[i];
+        g.drawImage(image, x, y, x + w, y + height, sx, 0, sx + w, height, null);
+    }
+}
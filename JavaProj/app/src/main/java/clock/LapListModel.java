@@ -0,0 +1,95 @@
+package clock;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * LapListModel
+ * ListModel view of a LapStore that formats a row only when the JList asks
+ * for it, i.e. when the row is painted. With a fixed cell height the list
+ * never walks all rows, so tens of thousands of laps stay cheap.
+ * The store is the engine's and changes on engine threads; the model shows
+ * the size it last published and catches up in sync(). Must be used on the EDT.
+ */
+final class LapListModel extends AbstractListModel<String> {
+    private final LapStore laps;
+    // What the JList has been told about
+    private int size;
+    private int best = -1;
+    private int worst = -1;
+    private int resets;
+
+    LapListModel(LapStore laps) {
+        this.laps = laps;
+    }
+
+    LapStore laps() {
+        return laps;
+    }
+
+    /** Publishes laps added or a reset made since the last call. */
+    void sync() {
+        int n, r;
+        synchronized (laps) {
+            n = laps.size();
+            r = laps.resets();
+        }
+        if (r != resets) {
+            // Reset, possibly followed by new laps: drop every row, then add what is there
+            resets = r;
+            int old = size;
+            size = 0;
+            best = worst = -1;
+            if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+        }
+        if (n > size) {
+            int from = size;
+            size = n;
+            fireIntervalAdded(this, from, n - 1);
+            // Repaint the rows that gained or lost their highlight; highlights start at two laps
+            if (from == 1) fireContentsChanged(this, 0, 0);
+        }
+        int b = laps.best(), w = laps.worst();
+        if (best >= 0 && best < size && b != best) fireContentsChanged(this, best, best);
+        if (worst >= 0 && worst < size && w != worst) fireContentsChanged(this, worst, worst);
+        best = b;
+        worst = w;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int i) {
+        // A reset not yet synced
+        if (i >= laps.size()) return "";
+        return "Lap " + (i + 1) + "   " + TimeFormat.stopwatch(laps.split(i) / 1_000_000)
+                + "   " + TimeFormat.stopwatch(laps.mark(i) / 1_000_000);
+    }
+
+    /** Colors the best lap green and the worst red once there are at least two laps. */
+    static final class Renderer extends DefaultListCellRenderer {
+        private final LapStore laps;
+        private final Color best;
+        private final Color worst;
+
+        Renderer(LapStore laps, Color best, Color worst) {
+            this.laps = laps;
+            this.best = best;
+            this.worst = worst;
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            if (!isSelected && laps.size() > 1) {
+                if (index == laps.best()) setForeground(best);
+                else if (index == laps.worst()) setForeground(worst);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package clock;
+
+import java.util.Arrays;
+
+/**
+ * LapStore
+ * Lap marks kept as a growable long[] of elapsed nanoseconds, with split
+ * statistics (min, max, mean, last) and the best/worst lap updated in O(1)
+ * per lap. Nothing is formatted here; see LapListModel.
+ */
+final class LapStore {
+    private long[] marks = new long[64];
+    private int count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private int best = -1;
+    private int worst = -1;
+    private int resets;
+
+    /** Records a lap at the given total elapsed time; returns its index. */
+    synchronized int add(long elapsedNanos) {
+        if (count == marks.length) marks = Arrays.copyOf(marks, count * 2);
+        long split = elapsedNanos - (count == 0 ? 0 : marks[count - 1]);
+        marks[count] = elapsedNanos;
+        sum += split;
+        if (split < min) {
+            min = split;
+            best = count;
+        }
+        if (split > max) {
+            max = split;
+            worst = count;
+        }
+        return count++;
+    }
+
+    synchronized void clear() {
+        resets++;
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+        best = -1;
+        worst = -1;
+        if (marks.length > 1024) marks = new long[64];
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    /** How many times clear() has run; lets a view tell a reset from a shorter list. */
+    synchronized int resets() {
+        return resets;
+    }
+
+    /** Total elapsed time at lap i. */
+    synchronized long mark(int i) {
+        return marks[i];
+    }
+
+    /** Duration of lap i alone. */
+    synchronized long split(int i) {
+        return marks[i] - (i == 0 ? 0 : marks[i - 1]);
+    }
+
+    synchronized long lastSplit() {
+        return count == 0 ? 0 : split(count - 1);
+    }
+
+    synchronized long minSplit() {
+        return count == 0 ? 0 : min;
+    }
+
+    synchronized long maxSplit() {
+        return count == 0 ? 0 : max;
+    }
+
+    synchronized long meanSplit() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /** Index of the fastest lap, or -1. */
+    synchronized int best() {
+        return best;
+    }
+
+    /** Index of the slowest lap, or -1. */
+    synchronized int worst() {
+        return worst;
+    }
+}
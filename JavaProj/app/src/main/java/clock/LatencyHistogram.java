@@ -0,0 +1,94 @@
+package clock;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram
+ * Lock-free histogram of durations in nanoseconds. Buckets are log2 with 16
+ * linear sub-buckets per power of two, so a recorded value costs one
+ * leading-zero count and one atomic increment, and percentiles read back
+ * within ~6% of the true value from 1 ns to hours.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /** Records one duration; negative values count as zero. Safe from any thread. */
+    void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(index(v));
+        total.add(v);
+        max.accumulate(v);
+    }
+
+    long count() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+        return n;
+    }
+
+    long maxNanos() {
+        return max.get();
+    }
+
+    long meanNanos() {
+        long n = count();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+
+    /** Upper bound of the bucket holding the p-quantile (0 < p <= 1), 0 when empty. */
+    long percentileNanos(double p) {
+        long[] c = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += c[i] = counts.get(i);
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += c[i];
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /** Not atomic with respect to concurrent record() calls; a racing value may survive or be lost. */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.reset();
+        max.reset();
+    }
+
+    /** One line: name, count, mean, p50, p90, p99, p99.9 and max in ms. */
+    String summary() {
+        return String.format("%s n=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f ms",
+                name, count(), meanNanos() / 1e6, percentileNanos(0.5) / 1e6, percentileNanos(0.9) / 1e6,
+                percentileNanos(0.99) / 1e6, percentileNanos(0.999) / 1e6, maxNanos() / 1e6);
+    }
+
+    static int index(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB) return index;
+        int shift = index / SUB - 1;
+        if (shift >= 63 - SUB_BITS - 1) return Long.MAX_VALUE;
+        long lower = (long) (SUB + index % SUB) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
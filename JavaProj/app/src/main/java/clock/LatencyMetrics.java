@@ -0,0 +1,206 @@
+package clock;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * LatencyMetrics
+ * Where the time goes between "due" and "heard": scheduled-vs-actual fire
+ * time of alarm, timer, stopwatch and clock ticks, how long renders wait in
+ * the EDT queue, and from opening a sound file to its first frame being
+ * played. Off unless -Dclock.metrics=true; then every probe below is a
+ * LatencyHistogram, published as the MBean ElegantClock:type=Latency and,
+ * with -Dclock.metrics.log=file, appended to that file every
+ * clock.metrics.logSeconds (60). While off every probe is null, so the
+ * instrumented paths only pay a null check.
+ */
+final class LatencyMetrics {
+    static final boolean ENABLED = Boolean.getBoolean("clock.metrics");
+
+    private static final List<LatencyHistogram> ALL = new ArrayList<>();
+
+    // Probes; null while disabled
+    static final LatencyHistogram ALARM_WAKE = probe("alarmWake");
+    static final LatencyHistogram TIMER_EXPIRY = probe("timerExpiry");
+    static final LatencyHistogram STOPWATCH_TICK = probe("stopwatchTick");
+    static final LatencyHistogram CLOCK_TICK = probe("clockTick");
+    static final LatencyHistogram EDT_QUEUE = probe("edtQueue");
+    static final LatencyHistogram AUDIO_START = probe("audioStart");
+
+    private static boolean started;
+
+    private LatencyMetrics() {
+    }
+
+    private static LatencyHistogram probe(String name) {
+        if (!ENABLED) return null;
+        LatencyHistogram h = new LatencyHistogram(name);
+        ALL.add(h);
+        return h;
+    }
+
+    static void record(LatencyHistogram probe, long nanos) {
+        if (probe != null) probe.record(nanos);
+    }
+
+    /** Wraps task to record its EDT queue delay; returns task itself while disabled. Call at enqueue time. */
+    static Runnable queued(Runnable task) {
+        if (EDT_QUEUE == null) return task;
+        long enqueued = System.nanoTime();
+        return () -> {
+            EDT_QUEUE.record(System.nanoTime() - enqueued);
+            task.run();
+        };
+    }
+
+    /** Registers the MBean and the periodic log dump once; no-op while disabled. */
+    static synchronized void start(TickScheduler scheduler) {
+        if (!ENABLED || started) return;
+        started = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(new Bean(), new ObjectName("ElegantClock:type=Latency"));
+        } catch (JMException ex) {
+            System.err.println("Could not register latency MBean: " + ex.getMessage());
+        }
+        String log = System.getProperty("clock.metrics.log");
+        if (log != null && !log.isEmpty()) {
+            Path path = Paths.get(log);
+            long period = Math.max(1, Long.getLong("clock.metrics.logSeconds", 60));
+            scheduler.scheduleAtFixedRate(() -> dump(path), period, period, TimeUnit.SECONDS);
+        }
+    }
+
+    static String report() {
+        StringBuilder sb = new StringBuilder();
+        for (LatencyHistogram h : ALL) sb.append(h.summary()).append('\n');
+        return sb.toString();
+    }
+
+    static void reset() {
+        for (LatencyHistogram h : ALL) h.reset();
+    }
+
+    private static void dump(Path path) {
+        StringBuilder sb = new StringBuilder();
+        String at = Instant.now().toString();
+        for (LatencyHistogram h : ALL) sb.append(at).append(' ').append(h.summary()).append('\n');
+        try {
+            Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            System.err.println("Could not write latency log " + path + ": " + ex.getMessage());
+        }
+    }
+
+    // Attribute "<probe>_<stat>" for every probe, values in microseconds except count
+    private static final class Bean implements DynamicMBean {
+        private static final String[] STATS = {"count", "meanMicros", "p50Micros", "p90Micros", "p99Micros", "p999Micros", "maxMicros"};
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            int sep = attribute.lastIndexOf('_');
+            if (sep > 0) {
+                String name = attribute.substring(0, sep);
+                ToLongFunction<LatencyHistogram> stat = stat(attribute.substring(sep + 1));
+                for (LatencyHistogram h : ALL) {
+                    if (stat != null && h.name.equals(name)) return stat.applyAsLong(h);
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        private static ToLongFunction<LatencyHistogram> stat(String s) {
+            switch (s) {
+                case "count":
+                    return LatencyHistogram::count;
+                case "meanMicros":
+                    return h -> h.meanNanos() / 1000;
+                case "p50Micros":
+                    return h -> h.percentileNanos(0.5) / 1000;
+                case "p90Micros":
+                    return h -> h.percentileNanos(0.9) / 1000;
+                case "p99Micros":
+                    return h -> h.percentileNanos(0.99) / 1000;
+                case "p999Micros":
+                    return h -> h.percentileNanos(0.999) / 1000;
+                case "maxMicros":
+                    return h -> h.maxNanos() / 1000;
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String a : attributes) {
+                try {
+                    list.add(new Attribute(a, getAttribute(a)));
+                } catch (AttributeNotFoundException ignored) {
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+            switch (action) {
+                case "reset":
+                    reset();
+                    return null;
+                case "report":
+                    return report();
+                default:
+                    throw new ReflectionException(new NoSuchMethodException(action));
+            }
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            for (LatencyHistogram h : ALL) {
+                for (String s : STATS) {
+                    attrs.add(new MBeanAttributeInfo(h.name + "_" + s, "long", h.name + " " + s, true, false, false));
+                }
+            }
+            MBeanOperationInfo[] ops = {
+                    new MBeanOperationInfo("reset", "Clears every histogram", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION),
+                    new MBeanOperationInfo("report", "One summary line per histogram", new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO)
+            };
+            return new MBeanInfo(LatencyMetrics.class.getName(), "Clock latency histograms",
+                    attrs.toArray(new MBeanAttributeInfo[0]), null, ops, null);
+        }
+    }
+}
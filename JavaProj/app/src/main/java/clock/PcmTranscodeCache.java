@@ -0,0 +1,205 @@
+package clock;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * PcmTranscodeCache
+ * Compressed sounds (MP3 and anything else Java Sound cannot read as PCM) are
+ * decoded once, in the background, into a raw PCM file in AudioMixer.FORMAT
+ * named after the SHA-256 of the source content. Later plays memory-map that
+ * file, so a given file is never decoded twice, even across restarts.
+ * Decoding goes through AudioSystem, so it needs a pure-Java MP3 service
+ * provider (such as mp3spi) on the classpath; without one the failure is
+ * reported through the error listener instead of failing silently.
+ */
+final class PcmTranscodeCache {
+    private static final byte[] MAGIC = "ECPCM001".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_BYTES = 16;
+
+    private final Path dir;
+    private final Consumer<String> errors;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "clock-transcode");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    // Source file identity (path, size, mtime) -> content hash, to avoid rehashing on every play
+    private final Map<String, String> hashes = new HashMap<>();
+    private final Map<String, ByteBuffer> mapped = new HashMap<>();
+    private final Set<String> inFlight = new HashSet<>();
+
+    PcmTranscodeCache(Path dir, Consumer<String> errors) {
+        this.dir = dir;
+        this.errors = errors;
+    }
+
+    static Path defaultDir() {
+        return Path.of(System.getProperty("user.home"), ".elegantclock", "pcm-cache");
+    }
+
+    /** True for files that must go through this cache rather than the in-memory SoundCache; by extension, so no I/O. */
+    static boolean handles(File f) {
+        String name = f.getName().toLowerCase(Locale.ROOT);
+        return !(name.endsWith(".wav") || name.endsWith(".wave") || name.endsWith(".aif") || name.endsWith(".aiff")
+                || name.endsWith(".aifc") || name.endsWith(".au") || name.endsWith(".snd"));
+    }
+
+    /**
+     * Returns a read-only little-endian view of the transcoded PCM, positioned at
+     * the first sample, or null if it is not ready yet. In that case a background
+     * transcode is started and onReady runs once it has finished successfully.
+     */
+    ByteBuffer get(File f, Runnable onReady) throws IOException {
+        String hash = hash(f);
+        synchronized (this) {
+            ByteBuffer b = mapped.get(hash);
+            if (b != null) return view(b);
+        }
+        Path cached = dir.resolve(hash + ".pcm");
+        if (Files.isRegularFile(cached)) {
+            ByteBuffer b = map(cached);
+            if (b != null) {
+                synchronized (this) {
+                    mapped.put(hash, b);
+                }
+                return view(b);
+            }
+        }
+        synchronized (this) {
+            if (!inFlight.add(hash)) return null;
+        }
+        worker.execute(() -> {
+            try {
+                transcode(f, cached);
+                if (onReady != null) onReady.run();
+            } catch (Exception ex) {
+                errors.accept("Cannot decode " + f.getName() + ": " + describe(f, ex));
+            } finally {
+                synchronized (this) {
+                    inFlight.remove(hash);
+                }
+            }
+        });
+        return null;
+    }
+
+    /** Starts a background transcode if needed, without playing anything. */
+    void warm(File f) {
+        try {
+            get(f, null);
+        } catch (IOException ex) {
+            errors.accept("Cannot read " + f.getName() + ": " + ex.getMessage());
+        }
+    }
+
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private static ByteBuffer view(ByteBuffer b) {
+        return b.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(HEADER_BYTES);
+    }
+
+    private static ByteBuffer map(Path p) throws IOException {
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) return null;
+            ByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (b.get(i) != MAGIC[i]) return null;
+            }
+            return b;
+        }
+    }
+
+    private void transcode(File src, Path target) throws IOException, UnsupportedAudioFileException {
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "transcode", ".tmp");
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(src);
+             AudioInputStream pcm = SoundCache.convert(SoundCache.toPcm(in), AudioMixer.FORMAT);
+             OutputStream out = Files.newOutputStream(tmp)) {
+            if (!pcm.getFormat().matches(AudioMixer.FORMAT)) {
+                throw new UnsupportedAudioFileException("cannot convert " + pcm.getFormat() + " to " + AudioMixer.FORMAT);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC).putInt((int) AudioMixer.FORMAT.getSampleRate()).putInt(AudioMixer.FORMAT.getChannels());
+            out.write(header.array());
+            pcm.transferTo(out);
+        } catch (IOException | UnsupportedAudioFileException | RuntimeException ex) {
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String hash(File f) throws IOException {
+        String key = f.getAbsolutePath() + '|' + f.length() + '|' + f.lastModified();
+        synchronized (this) {
+            String h = hashes.get(key);
+            if (h != null) return h;
+        }
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(f.toPath())) {
+            int n;
+            while ((n = in.read(buf)) > 0) md.update(buf, 0, n);
+        }
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : md.digest()) sb.append(String.format("%02x", b));
+        String h = sb.toString();
+        synchronized (this) {
+            hashes.put(key, h);
+        }
+        return h;
+    }
+
+    // The mp3spi hint only when no installed reader recognizes an .mp3 at all;
+    // conversion failures and odd WAV/AIFF variants keep their own message
+    private static String describe(File f, Exception ex) {
+        if (ex instanceof UnsupportedAudioFileException
+                && f.getName().toLowerCase(Locale.ROOT).endsWith(".mp3") && !recognized(f)) {
+            return "no MP3 decoder installed (add an MP3 service provider such as mp3spi to the classpath)";
+        }
+        return ex.getMessage();
+    }
+
+    private static boolean recognized(File f) {
+        try {
+            AudioSystem.getAudioFileFormat(f);
+            return true;
+        } catch (UnsupportedAudioFileException ex) {
+            return false;
+        } catch (IOException ex) {
+            return true;
+        }
+    }
+}
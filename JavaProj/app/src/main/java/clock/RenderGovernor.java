@@ -0,0 +1,97 @@
+package clock;
+
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RenderGovernor
+ * Decides how often each live display may refresh from what is actually on
+ * screen: the card shown by the CardLayout, whether the window is iconified,
+ * and whether it has focus. A display bound to a hidden card, or any display
+ * of an iconified window, is SUSPENDED; an unfocused but visible window is
+ * THROTTLED. Displays only change their refresh; their timing sources keep
+ * running, and each display redraws as soon as it leaves SUSPENDED.
+ * EDT only.
+ */
+final class RenderGovernor {
+    enum Mode { FULL, THROTTLED, SUSPENDED }
+
+    interface Display {
+        void modeChanged(Mode mode);
+    }
+
+    private static final class Entry {
+        final String card;
+        final Display display;
+        Mode mode;
+
+        Entry(String card, Display display) {
+            this.card = card;
+            this.display = display;
+        }
+    }
+
+    private final List<Entry> displays = new ArrayList<>();
+    private String card;
+    private boolean iconified;
+    private boolean focused = true;
+
+    /** Registers a display shown only on the given card, or always when card is null, and reports its mode. */
+    void register(String card, Display display) {
+        Entry e = new Entry(card, display);
+        displays.add(e);
+        e.mode = modeFor(e);
+        display.modeChanged(e.mode);
+    }
+
+    void attach(Window window) {
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowIconified(WindowEvent e) {
+                iconified = true;
+                update();
+            }
+
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                iconified = false;
+                update();
+            }
+
+            @Override
+            public void windowActivated(WindowEvent e) {
+                focused = true;
+                update();
+            }
+
+            @Override
+            public void windowDeactivated(WindowEvent e) {
+                focused = false;
+                update();
+            }
+        });
+    }
+
+    void cardShown(String card) {
+        this.card = card;
+        update();
+    }
+
+    private Mode modeFor(Entry e) {
+        if (iconified || (e.card != null && !e.card.equals(card))) return Mode.SUSPENDED;
+        return focused ? Mode.FULL : Mode.THROTTLED;
+    }
+
+    private void update() {
+        for (Entry e : displays) {
+            Mode m = modeFor(e);
+            if (m != e.mode) {
+                e.mode = m;
+                e.display.modeChanged(m);
+            }
+        }
+    }
+}
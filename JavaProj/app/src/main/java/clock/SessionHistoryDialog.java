@@ -0,0 +1,122 @@
+package clock;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * SessionHistoryDialog
+ * Per-day stopwatch history (sessions, laps, best lap, total time) read from
+ * the SessionLog, with a CSV export of the whole log. All log access runs on
+ * the engine's session I/O thread; the dialog only receives finished rows.
+ */
+class SessionHistoryDialog extends JDialog {
+    private static final String[] COLUMNS = {"Day", "Sessions", "Laps", "Best lap", "Total"};
+
+    private final Callable<SessionLog> log;
+    private final Executor io;
+    private final DefaultTableModel model = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final JComboBox<String> range = new JComboBox<>(new String[]{"Last 7 days", "Last 30 days", "Last year"});
+    private final JLabel status = new JLabel(" ");
+
+    SessionHistoryDialog(Frame owner, Callable<SessionLog> log, Executor io) {
+        super(owner, "Stopwatch history", false);
+        this.log = log;
+        this.io = io;
+
+        JPanel root = new JPanel(new BorderLayout(8, 8));
+        root.setBackground(new Color(24, 26, 30));
+        root.setBorder(new EmptyBorder(12, 12, 12, 12));
+        setContentPane(root);
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        top.setOpaque(false);
+        JButton export = new JButton("Export CSV...");
+        top.add(range);
+        top.add(export);
+        root.add(top, BorderLayout.NORTH);
+
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        root.add(new JScrollPane(table), BorderLayout.CENTER);
+
+        status.setForeground(new Color(150, 160, 170));
+        root.add(status, BorderLayout.SOUTH);
+
+        range.addActionListener(e -> reload());
+        export.addActionListener(e -> export());
+
+        setSize(560, 360);
+        setLocationRelativeTo(owner);
+        reload();
+    }
+
+    private long rangeStartMillis() {
+        int days = range.getSelectedIndex() == 0 ? 7 : range.getSelectedIndex() == 1 ? 30 : 365;
+        return LocalDate.now().minusDays(days - 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void reload() {
+        long from = rangeStartMillis();
+        status.setText("Loading...");
+        io.execute(() -> {
+            try {
+                NavigableMap<LocalDate, SessionLog.DaySummary> days =
+                        log.call().summarizeByDay(from, Long.MAX_VALUE, ZoneId.systemDefault());
+                Object[][] rows = new Object[days.size()][];
+                int i = 0;
+                for (Map.Entry<LocalDate, SessionLog.DaySummary> e : days.descendingMap().entrySet()) {
+                    SessionLog.DaySummary d = e.getValue();
+                    rows[i++] = new Object[]{e.getKey().toString(), d.sessions, d.laps,
+                            d.laps == 0 ? "-" : TimeFormat.stopwatch(d.bestLapNanos / 1_000_000),
+                            TimeFormat.stopwatch(d.totalNanos / 1_000_000)};
+                }
+                SwingUtilities.invokeLater(() -> {
+                    model.setRowCount(0);
+                    for (Object[] row : rows) model.addRow(row);
+                    status.setText(rows.length == 0 ? "No sessions in this range" : rows.length + " days");
+                });
+            } catch (Exception ex) {
+                SwingUtilities.invokeLater(() -> status.setText("Could not read history: " + ex.getMessage()));
+            }
+        });
+    }
+
+    private void export() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export stopwatch history");
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        chooser.setSelectedFile(new File("stopwatch-history.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File target = chooser.getSelectedFile();
+        status.setText("Exporting...");
+        io.execute(() -> {
+            try (Writer w = Files.newBufferedWriter(target.toPath(), StandardCharsets.UTF_8)) {
+                log.call().exportCsv(Long.MIN_VALUE, Long.MAX_VALUE, w);
+                SwingUtilities.invokeLater(() -> status.setText("Exported to " + target.getName()));
+            } catch (IOException ex) {
+                SwingUtilities.invokeLater(() -> status.setText("Export failed: " + ex.getMessage()));
+            } catch (Exception ex) {
+                SwingUtilities.invokeLater(() -> status.setText("Could not read history: " + ex.getMessage()));
+            }
+        });
+    }
+}
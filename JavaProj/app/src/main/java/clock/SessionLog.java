@@ -0,0 +1,252 @@
+package clock;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * SessionLog
+ * Append-only binary log of stopwatch laps and session ends, one fixed-width
+ * RECORD_BYTES record each, written through a memory-mapped file. The header
+ * holds the committed record count, which only advances on flush(), so a crash
+ * loses at most the unflushed tail and never leaves a torn record visible.
+ * Records are appended as they happen, normally in wall-clock order; a sparse
+ * in-memory index of every INDEX_STRIDE-th record's time lets range queries
+ * skip straight to the start of the range. Once the clock has stepped back
+ * (a manual change, an NTP step) the order no longer holds and queries scan
+ * the whole log instead. Queries and the CSV export stream records without
+ * loading the file, and without holding the lock appends need.
+ */
+final class SessionLog implements AutoCloseable {
+    static final int TYPE_LAP = 1;
+    static final int TYPE_SESSION_END = 2;
+
+    private static final byte[] MAGIC = "ECSLOG01".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 40;
+    private static final int INDEX_STRIDE = 256;
+    private static final long INITIAL_BYTES = 1L << 20;
+
+    /** One record; for TYPE_LAP split is the lap duration, for TYPE_SESSION_END the session total. */
+    interface Visitor {
+        void record(long wallMillis, long sessionStartMillis, int type, int index, long splitNanos, long totalNanos)
+                throws IOException;
+    }
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private long count;
+    private long committed;
+    private long[] indexTime = new long[64];
+    private int indexSize;
+    // False once a record has an earlier wall time than the one before it
+    private boolean ordered = true;
+    private long lastWall = Long.MIN_VALUE;
+
+    private SessionLog(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    static Path defaultPath() {
+        return Path.of(System.getProperty("user.home"), ".elegantclock", "stopwatch-sessions.log");
+    }
+
+    static SessionLog open(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        SessionLog log = new SessionLog(ch);
+        try {
+            log.load();
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+        return log;
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        map(Math.max(size, INITIAL_BYTES));
+        if (size < HEADER_BYTES) {
+            map.put(0, MAGIC);
+            map.putLong(8, 0);
+            map.force();
+        } else {
+            byte[] magic = new byte[MAGIC.length];
+            map.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a session log: " + channel);
+        }
+        count = committed = map.getLong(8);
+        for (long i = 0; i < count; i++) {
+            long wall = wallMillis(i);
+            if (i % INDEX_STRIDE == 0) addIndex(wall);
+            noteWall(wall);
+        }
+    }
+
+    private void noteWall(long wall) {
+        if (wall < lastWall) ordered = false;
+        lastWall = wall;
+    }
+
+    synchronized void appendLap(long wallMillis, long sessionStartMillis, int index, long splitNanos, long totalNanos)
+            throws IOException {
+        append(wallMillis, sessionStartMillis, TYPE_LAP, index, splitNanos, totalNanos);
+    }
+
+    synchronized void appendSessionEnd(long wallMillis, long sessionStartMillis, int laps, long totalNanos)
+            throws IOException {
+        append(wallMillis, sessionStartMillis, TYPE_SESSION_END, laps, totalNanos, totalNanos);
+    }
+
+    private void append(long wall, long session, int type, int index, long split, long total) throws IOException {
+        long pos = offset(count);
+        if (pos + RECORD_BYTES > map.capacity()) map(map.capacity() * 2L);
+        int p = (int) pos;
+        map.putLong(p, wall);
+        map.putLong(p + 8, session);
+        map.putInt(p + 16, type);
+        map.putInt(p + 20, index);
+        map.putLong(p + 24, split);
+        map.putLong(p + 32, total);
+        if (count % INDEX_STRIDE == 0) addIndex(wall);
+        noteWall(wall);
+        count++;
+    }
+
+    /** Publishes appended records by advancing the header count and forcing the mapping to disk. */
+    synchronized void flush() {
+        if (committed == count) return;
+        map.force();
+        map.putLong(8, count);
+        map.force();
+        committed = count;
+    }
+
+    synchronized boolean isDirty() {
+        return committed != count;
+    }
+
+    synchronized long size() {
+        return count;
+    }
+
+    /**
+     * Streams every record with fromMillis <= wall time < toMillis, in log
+     * order. The records to visit are fixed under the lock; the visiting runs
+     * without it, so appends and flushes carry on during a long export.
+     */
+    void scan(long fromMillis, long toMillis, Visitor v) throws IOException {
+        MappedByteBuffer m;
+        long start = 0, end;
+        boolean sorted;
+        synchronized (this) {
+            // Records below count are complete, and a mapping replaced on growth still shows them
+            m = map;
+            end = count;
+            sorted = ordered;
+            if (sorted) {
+                // Last indexed block starting before the range
+                int lo = 0, hi = indexSize - 1, block = 0;
+                while (lo <= hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (indexTime[mid] < fromMillis) {
+                        block = mid;
+                        lo = mid + 1;
+                    } else {
+                        hi = mid - 1;
+                    }
+                }
+                start = (long) block * INDEX_STRIDE;
+            }
+        }
+        for (long i = start; i < end; i++) {
+            int p = (int) offset(i);
+            long wall = m.getLong(p);
+            if (wall >= toMillis) {
+                if (sorted) break;
+                continue;
+            }
+            if (wall < fromMillis) continue;
+            v.record(wall, m.getLong(p + 8), m.getInt(p + 16), m.getInt(p + 20),
+                    m.getLong(p + 24), m.getLong(p + 32));
+        }
+    }
+
+    /** Per local day: finished sessions, laps, fastest lap and total session time. */
+    static final class DaySummary {
+        int sessions;
+        int laps;
+        long bestLapNanos = Long.MAX_VALUE;
+        long totalNanos;
+    }
+
+    NavigableMap<LocalDate, DaySummary> summarizeByDay(long fromMillis, long toMillis, ZoneId zone) throws IOException {
+        TreeMap<LocalDate, DaySummary> days = new TreeMap<>();
+        scan(fromMillis, toMillis, (wall, session, type, index, split, total) -> {
+            LocalDate day = Instant.ofEpochMilli(wall).atZone(zone).toLocalDate();
+            DaySummary d = days.computeIfAbsent(day, k -> new DaySummary());
+            if (type == TYPE_LAP) {
+                d.laps++;
+                d.bestLapNanos = Math.min(d.bestLapNanos, split);
+            } else if (type == TYPE_SESSION_END) {
+                d.sessions++;
+                d.totalNanos += total;
+            }
+        });
+        return days;
+    }
+
+    /** Writes the range as CSV, one record at a time. */
+    void exportCsv(long fromMillis, long toMillis, Writer out) throws IOException {
+        out.write("time,session_start,type,index,split_ms,total_ms\n");
+        StringBuilder line = new StringBuilder(96);
+        scan(fromMillis, toMillis, (wall, session, type, index, split, total) -> {
+            line.setLength(0);
+            line.append(Instant.ofEpochMilli(wall)).append(',')
+                    .append(Instant.ofEpochMilli(session)).append(',')
+                    .append(type == TYPE_LAP ? "lap" : "session").append(',')
+                    .append(index).append(',')
+                    .append(split / 1_000_000).append(',')
+                    .append(total / 1_000_000).append('\n');
+            out.append(line);
+        });
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private static long offset(long record) {
+        return HEADER_BYTES + record * RECORD_BYTES;
+    }
+
+    private long wallMillis(long record) {
+        return map.getLong((int) offset(record));
+    }
+
+    private void addIndex(long wall) {
+        if (indexSize == indexTime.length) indexTime = Arrays.copyOf(indexTime, indexSize * 2);
+        indexTime[indexSize++] = wall;
+    }
+
+    private void map(long bytes) throws IOException {
+        if (bytes > Integer.MAX_VALUE) throw new IOException("Session log full");
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+    }
+}
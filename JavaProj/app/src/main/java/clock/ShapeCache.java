@@ -0,0 +1,221 @@
+package clock;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ShapeCache
+ * Pre-rendered antialiased tiles so repaints of the rounded panels and the
+ * vector icons are image blits instead of re-rasterizing. Tiles are drawn
+ * at device resolution and keyed by shape, size, color and device scale;
+ * the whole cache is dropped when a paint arrives at a different scale
+ * (the window moved to another monitor, or the scale setting changed).
+ * Rounded rectangles are nine-sliced: only the four corners are images, the
+ * edges and middle are plain fills, so one tile serves every panel size;
+ * their edges snap to whole device pixels. Icons keep their sub-pixel
+ * position, in eighths of a device pixel.
+ * Transforms other than scale and translation fall back to direct
+ * rendering, as does -Dclock.shapeCache=false.
+ */
+final class ShapeCache {
+    /** Draws an icon at (x, y) in logical pixels; antialiasing is already on. */
+    interface Painter {
+        void paint(Graphics2D g, int x, int y);
+    }
+
+    // Icons may draw a little outside their nominal box (the timer stem does)
+    private static final int ICON_MARGIN = 4;
+    private static final int MAX_ENTRIES = 128;
+    // Icons land on fractional device pixels at scales like 125%; tiles are keyed by the offset in eighths
+    private static final int PHASES = 8;
+
+    private static volatile boolean enabled = !"false".equals(System.getProperty("clock.shapeCache"));
+
+    private static final Map<Key, BufferedImage> tiles = new LinkedHashMap<Key, BufferedImage>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, BufferedImage> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private static double scaleX = 1;
+    private static double scaleY = 1;
+
+    private ShapeCache() {
+    }
+
+    private static final class Key {
+        final Object shape;
+        final int size;
+        final int rgba;
+        final double sx;
+        final double sy;
+        final int phase;
+
+        Key(Object shape, int size, Color color, double sx, double sy, int phase) {
+            this.shape = shape;
+            this.size = size;
+            this.rgba = color.getRGB();
+            this.sx = sx;
+            this.sy = sy;
+            this.phase = phase;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return size == k.size && rgba == k.rgba && sx == k.sx && sy == k.sy && phase == k.phase
+                    && shape.equals(k.shape);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = shape.hashCode();
+            h = 31 * h + size;
+            h = 31 * h + rgba;
+            h = 31 * h + Double.hashCode(sx);
+            h = 31 * h + Double.hashCode(sy);
+            return 31 * h + phase;
+        }
+    }
+
+    /** For A/B measurements; painting falls back to direct rendering while off. */
+    static void setEnabled(boolean on) {
+        enabled = on;
+        synchronized (ShapeCache.class) {
+            tiles.clear();
+        }
+    }
+
+    /** Fills (0, 0, w, h) with a rounded rectangle exactly like RoundRectangle2D with arc width and height arc. */
+    static void fillRoundRect(Graphics2D g, Color color, int w, int h, int arc) {
+        AffineTransform tx = g.getTransform();
+        if (!enabled || !scaleOnly(tx)) {
+            fillDirect(g, color, w, h, arc);
+            return;
+        }
+        double sx = tx.getScaleX(), sy = tx.getScaleY();
+        int cw = (int) Math.ceil(arc / 2.0 * sx);
+        int ch = (int) Math.ceil(arc / 2.0 * sy);
+        int dx = (int) Math.round(tx.getTranslateX());
+        int dy = (int) Math.round(tx.getTranslateY());
+        int dw = (int) Math.round(w * sx);
+        int dh = (int) Math.round(h * sy);
+        if (dw < 2 * cw || dh < 2 * ch) {
+            fillDirect(g, color, w, h, arc);
+            return;
+        }
+        Key key = new Key("roundRect", arc, color, sx, sy, 0);
+        BufferedImage corners = lookup(key);
+        if (corners == null) {
+            corners = newTile(2 * cw, 2 * ch);
+            Graphics2D t = tileGraphics(corners, color);
+            t.fill(new RoundRectangle2D.Double(0, 0, 2 * cw, 2 * ch, arc * sx, arc * sy));
+            t.dispose();
+            store(key, corners);
+        }
+
+        // Blit in device pixels
+        g.setTransform(new AffineTransform());
+        try {
+            int right = dx + dw - cw, bottom = dy + dh - ch;
+            g.drawImage(corners, dx, dy, dx + cw, dy + ch, 0, 0, cw, ch, null);
+            g.drawImage(corners, right, dy, right + cw, dy + ch, cw, 0, 2 * cw, ch, null);
+            g.drawImage(corners, dx, bottom, dx + cw, bottom + ch, 0, ch, cw, 2 * ch, null);
+            g.drawImage(corners, right, bottom, right + cw, bottom + ch, cw, ch, 2 * cw, 2 * ch, null);
+            g.setColor(color);
+            g.fillRect(dx + cw, dy, dw - 2 * cw, dh);
+            g.fillRect(dx, dy + ch, cw, dh - 2 * ch);
+            g.fillRect(right, dy + ch, cw, dh - 2 * ch);
+        } finally {
+            g.setTransform(tx);
+        }
+    }
+
+    /**
+     * Paints a size x size icon at (x, y) from its cached tile; shape must
+     * identify everything about the drawing other than size and color.
+     */
+    static void paintIcon(Graphics g, Object shape, int size, Color color, int x, int y, Painter painter) {
+        Graphics2D g2 = (Graphics2D) g;
+        AffineTransform tx = g2.getTransform();
+        if (!enabled || !scaleOnly(tx)) {
+            Graphics2D d = (Graphics2D) g.create();
+            d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            d.setColor(color);
+            painter.paint(d, x, y);
+            d.dispose();
+            return;
+        }
+        double sx = tx.getScaleX(), sy = tx.getScaleY();
+        // Whole device pixels to blit at, plus the remainder baked into the tile
+        long px = Math.round((tx.getTranslateX() + (x - ICON_MARGIN) * sx) * PHASES);
+        long py = Math.round((tx.getTranslateY() + (y - ICON_MARGIN) * sy) * PHASES);
+        int dx = (int) Math.floorDiv(px, PHASES), dy = (int) Math.floorDiv(py, PHASES);
+        int phaseX = Math.floorMod(px, PHASES), phaseY = Math.floorMod(py, PHASES);
+        Key key = new Key(shape, size, color, sx, sy, phaseX * PHASES + phaseY);
+        BufferedImage icon = lookup(key);
+        if (icon == null) {
+            int extent = size + 2 * ICON_MARGIN;
+            icon = newTile((int) Math.ceil(extent * sx) + 1, (int) Math.ceil(extent * sy) + 1);
+            Graphics2D t = tileGraphics(icon, color);
+            t.translate(phaseX / (double) PHASES, phaseY / (double) PHASES);
+            t.scale(sx, sy);
+            painter.paint(t, ICON_MARGIN, ICON_MARGIN);
+            t.dispose();
+            store(key, icon);
+        }
+        g2.setTransform(new AffineTransform());
+        try {
+            g2.drawImage(icon, dx, dy, null);
+        } finally {
+            g2.setTransform(tx);
+        }
+    }
+
+    // A lookup at a new scale drops everything cached
+    private static synchronized BufferedImage lookup(Key key) {
+        if (key.sx != scaleX || key.sy != scaleY) {
+            tiles.clear();
+            scaleX = key.sx;
+            scaleY = key.sy;
+        }
+        return tiles.get(key);
+    }
+
+    private static synchronized void store(Key key, BufferedImage tile) {
+        if (key.sx == scaleX && key.sy == scaleY) tiles.put(key, tile);
+    }
+
+    private static BufferedImage newTile(int w, int h) {
+        return new BufferedImage(Math.max(1, w), Math.max(1, h), BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    private static Graphics2D tileGraphics(BufferedImage tile, Color color) {
+        Graphics2D t = tile.createGraphics();
+        t.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        t.setColor(color);
+        return t;
+    }
+
+    private static boolean scaleOnly(AffineTransform tx) {
+        int other = tx.getType() & ~(AffineTransform.TYPE_TRANSLATION
+                | AffineTransform.TYPE_UNIFORM_SCALE | AffineTransform.TYPE_GENERAL_SCALE);
+        return other == 0 && tx.getScaleX() > 0 && tx.getScaleY() > 0;
+    }
+
+    private static void fillDirect(Graphics2D g, Color color, int w, int h, int arc) {
+        Graphics2D d = (Graphics2D) g.create();
+        d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        d.setColor(color);
+        d.fill(new RoundRectangle2D.Double(0, 0, w, h, arc, arc));
+        d.dispose();
+    }
+}
@@ -0,0 +1,143 @@
+package clock;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SoundCache
+ * Decoded PCM keyed by file path and modification time, so a sound file is
+ * opened and decoded once and re-read only when it changes on disk.
+ * Entries are evicted least-recently-used once the total size exceeds maxBytes.
+ * With a target format, sounds are also converted to it (rate, channels) once
+ * at decode time; if the conversion is not supported they stay in their own PCM format.
+ */
+final class SoundCache {
+    /** Decoded audio, ready for Clip.open(format, data, 0, length). */
+    static final class Pcm {
+        final String path;
+        final long modified;
+        final AudioFormat format;
+        final byte[] data;
+        final int length;
+
+        Pcm(String path, long modified, AudioFormat format, byte[] data, int length) {
+            this.path = path;
+            this.modified = modified;
+            this.format = format;
+            this.data = data;
+            this.length = length;
+        }
+
+        int frames() {
+            return length / format.getFrameSize();
+        }
+    }
+
+    private final long maxBytes;
+    private final AudioFormat target;
+    private final LinkedHashMap<String, Pcm> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    SoundCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    SoundCache(long maxBytes, AudioFormat target) {
+        this.maxBytes = maxBytes;
+        this.target = target;
+    }
+
+    /** Returns the cached PCM for path, decoding it first if missing or stale. */
+    Pcm get(String path) throws IOException, UnsupportedAudioFileException {
+        File f = new File(path);
+        if (!f.isFile()) throw new FileNotFoundException(f.getAbsolutePath());
+        long modified = f.lastModified();
+        synchronized (this) {
+            Pcm p = entries.get(path);
+            if (p != null && p.modified == modified) return p;
+        }
+        Pcm p = decode(f, path, modified, target);
+        synchronized (this) {
+            Pcm old = entries.put(path, p);
+            if (old != null) totalBytes -= old.length;
+            totalBytes += p.length;
+            evict();
+        }
+        return p;
+    }
+
+    /** True if path is cached and its file has not changed since. */
+    synchronized boolean isFresh(Pcm p) {
+        return entries.get(p.path) == p && new File(p.path).lastModified() == p.modified;
+    }
+
+    synchronized void invalidate(String path) {
+        Pcm old = entries.remove(path);
+        if (old != null) totalBytes -= old.length;
+    }
+
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    // Caller holds the lock; always keeps the most recent entry even if it alone exceeds the budget
+    private void evict() {
+        Iterator<Map.Entry<String, Pcm>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && entries.size() > 1 && it.hasNext()) {
+            Pcm p = it.next().getValue();
+            it.remove();
+            totalBytes -= p.length;
+        }
+    }
+
+    static Pcm decode(File f, String path, long modified, AudioFormat target)
+            throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(f);
+             AudioInputStream pcm = convert(toPcm(in), target)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(estimateSize(pcm));
+            byte[] buf = new byte[16 * 1024];
+            int n;
+            while ((n = pcm.read(buf)) > 0) out.write(buf, 0, n);
+            byte[] data = out.toByteArray();
+            return new Pcm(path, modified, pcm.getFormat(), data, data.length);
+        }
+    }
+
+    // Compressed encodings (e.g. ULAW, ALAW) are converted to signed 16-bit PCM
+    static AudioInputStream toPcm(AudioInputStream in) {
+        AudioFormat src = in.getFormat();
+        AudioFormat.Encoding enc = src.getEncoding();
+        if (enc.equals(AudioFormat.Encoding.PCM_SIGNED) || enc.equals(AudioFormat.Encoding.PCM_UNSIGNED)) {
+            return in;
+        }
+        AudioFormat target = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, src.getSampleRate(), 16,
+                src.getChannels(), src.getChannels() * 2, src.getSampleRate(), false);
+        return AudioSystem.getAudioInputStream(target, in);
+    }
+
+    static AudioInputStream convert(AudioInputStream pcm, AudioFormat target) {
+        if (target == null || pcm.getFormat().matches(target)) return pcm;
+        if (!AudioSystem.isConversionSupported(target, pcm.getFormat())) return pcm;
+        return AudioSystem.getAudioInputStream(target, pcm);
+    }
+
+    private static int estimateSize(AudioInputStream in) {
+        long frames = in.getFrameLength();
+        int frameSize = in.getFormat().getFrameSize();
+        if (frames <= 0 || frameSize <= 0) return 64 * 1024;
+        return (int) Math.min(Integer.MAX_VALUE - 8, frames * frameSize);
+    }
+}
@@ -0,0 +1,146 @@
+package clock;
+
+import javax.swing.SwingUtilities;
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * StartupBenchmark
+ * Time from process launch to the first painted frame. main() launches the
+ * app in fresh JVMs, each of which reports and exits once the frame has
+ * painted, and fails when the median exceeds --max-ms, so a regression
+ * breaks the build step that runs it (mvn verify -Pstartup-check):
+ *
+ *   java -cp app/target/clock.jar clock.StartupBenchmark --runs 7 --max-ms 900 [--cds app/target/clock.jsa]
+ *
+ * Without a display, or with --headless, it times the headless engine up to
+ * "ready" instead. Every run gets an empty temporary state directory, so the
+ * user's saved alarms and timers are never replayed, compacted or fired.
+ * The app side is firstFramePainted() and engineReady(), no-ops unless
+ * -Dclock.startup.report or -Dclock.startup.exit is set.
+ */
+public final class StartupBenchmark {
+    static final String RESULT_PREFIX = "first-frame-ms=";
+
+    private static final boolean REPORT = Boolean.getBoolean("clock.startup.report");
+    private static final boolean EXIT = Boolean.getBoolean("clock.startup.exit");
+    private static boolean reported;
+
+    private StartupBenchmark() {
+    }
+
+    /** Called by the frame after every paint of its content; reports only the first one. EDT only. */
+    static void firstFramePainted() {
+        if (!report()) return;
+        // Let the paint in progress finish first
+        if (EXIT) SwingUtilities.invokeLater(() -> System.exit(0));
+    }
+
+    /** Called by the headless launcher once the engine is ready for commands. */
+    static void engineReady() {
+        if (report() && EXIT) System.exit(0);
+    }
+
+    private static synchronized boolean report() {
+        if (reported || !(REPORT || EXIT)) return false;
+        reported = true;
+        long t0 = Long.getLong("clock.startup.t0", -1);
+        if (t0 < 0) {
+            t0 = ProcessHandle.current().info().startInstant().map(i -> i.toEpochMilli()).orElse(-1L);
+        }
+        System.out.println(RESULT_PREFIX + (t0 < 0 ? -1 : System.currentTimeMillis() - t0));
+        System.out.flush();
+        return true;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        long maxMillis = Long.getLong("clock.startup.maxMs", -1);
+        String cds = null;
+        boolean headless = GraphicsEnvironment.isHeadless();
+        String classpath = System.getProperty("java.class.path");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-ms":
+                    maxMillis = Long.parseLong(args[++i]);
+                    break;
+                case "--cds":
+                    cds = args[++i];
+                    break;
+                case "--cp":
+                    classpath = args[++i];
+                    break;
+                case "--headless":
+                    headless = true;
+                    break;
+                default:
+                    System.err.println("usage: StartupBenchmark [--runs n] [--max-ms ms] [--cds archive.jsa] [--cp path] [--headless]");
+                    System.exit(2);
+            }
+        }
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        long[] times = new long[runs];
+        Path state = Files.createTempDirectory("clock-startup");
+        try {
+            for (int r = 0; r < runs; r++) {
+                List<String> cmd = new ArrayList<>(List.of(java, "-cp", classpath, "-Dclock.startup.exit=true",
+                        "-Dclock.state.dir=" + state));
+                if (cds != null) cmd.add("-XX:SharedArchiveFile=" + cds);
+                cmd.add("-Dclock.startup.t0=" + System.currentTimeMillis());
+                cmd.add(ClockLauncher.class.getName());
+                if (headless) cmd.add("--headless");
+                times[r] = launch(cmd);
+                System.out.println("run " + (r + 1) + ": " + times[r] + " ms");
+            }
+        } finally {
+            deleteTree(state);
+        }
+
+        Arrays.sort(times);
+        long median = times[runs / 2];
+        System.out.println((headless ? "engine ready" : "first frame") + ": min " + times[0] + " ms, median "
+                + median + " ms, max " + times[runs - 1] + " ms" + (cds != null ? " (CDS " + cds + ")" : ""));
+        if (maxMillis >= 0 && median > maxMillis) {
+            System.err.println("Startup regression: median " + median + " ms exceeds " + maxMillis + " ms");
+            System.exit(1);
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path f : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.deleteIfExists(f);
+        }
+    }
+
+    private static long launch(List<String> cmd) throws IOException, InterruptedException {
+        Process p = new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        long result = -1;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line; (line = in.readLine()) != null; ) {
+                if (line.startsWith(RESULT_PREFIX)) result = Long.parseLong(line.substring(RESULT_PREFIX.length()));
+            }
+        }
+        if (!p.waitFor(60, TimeUnit.SECONDS)) {
+            p.destroyForcibly();
+            throw new IOException("App did not exit within 60 s");
+        }
+        if (result < 0) throw new IOException("App exited (" + p.exitValue() + ") without reporting startup");
+        return result;
+    }
+}
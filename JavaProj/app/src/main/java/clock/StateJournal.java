@@ -0,0 +1,497 @@
+package clock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * StateJournal
+ * Write-ahead journal of alarms (with their repeat rules), countdowns and the stopwatch. Every change is
+ * appended as a length + CRC32 framed record; appends from any thread land in
+ * a buffer that the "clock-journal" thread writes and fsyncs at most once per
+ * GROUP_COMMIT_MILLIS (group commit). Records are absolute assignments keyed
+ * by id, so replaying one twice is harmless. Once the journal holds
+ * COMPACT_AFTER_RECORDS records the caller compacts it into a snapshot file
+ * (written to a temp file, fsynced and atomically renamed), on the journal's
+ * own thread via compactLater(), and the journal starts over. Recovery reads the snapshot plus the journal tail and stops at
+ * the first torn or corrupt record, which is cut off.
+ * Times are wall-clock epoch millis because nanoTime does not survive a restart.
+ */
+final class StateJournal implements AutoCloseable {
+    static final long GROUP_COMMIT_MILLIS = 10;
+    static final int COMPACT_AFTER_RECORDS = 4096;
+
+    private static final byte[] JOURNAL_MAGIC = "ECJRNL01".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SNAPSHOT_MAGIC = "ECSNAP01".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_RECORD_BYTES = 1 << 16;
+
+    private static final byte ALARM_SET = 1;
+    private static final byte ALARM_CLEAR = 2;
+    private static final byte TIMER_SET = 3;
+    private static final byte TIMER_CLEAR = 4;
+    private static final byte STOPWATCH = 5;
+    private static final byte LAP = 6;
+    private static final byte ALARM_RULE_SET = 7;
+
+    static final class AlarmRecord {
+        final long id;
+        final long fireAtMillis;
+        final String label;
+        /** AlarmRule.encode() of a repeating alarm, null for a one-shot. */
+        final String rule;
+
+        AlarmRecord(long id, long fireAtMillis, String label, String rule) {
+            this.id = id;
+            this.fireAtMillis = fireAtMillis;
+            this.label = label;
+            this.rule = rule;
+        }
+    }
+
+    static final class TimerRecord {
+        final long id;
+        final String name;
+        final long durationNanos;
+        /** Wall-clock deadline while running. */
+        final long deadlineMillis;
+        /** Frozen remaining time while paused, -1 while running. */
+        final long pausedRemainingNanos;
+
+        TimerRecord(long id, String name, long durationNanos, long deadlineMillis, long pausedRemainingNanos) {
+            this.id = id;
+            this.name = name;
+            this.durationNanos = durationNanos;
+            this.deadlineMillis = deadlineMillis;
+            this.pausedRemainingNanos = pausedRemainingNanos;
+        }
+    }
+
+    static final class StopwatchRecord {
+        final boolean running;
+        /** Wall time at which elapsedNanos was read. */
+        final long atMillis;
+        final long elapsedNanos;
+
+        StopwatchRecord(boolean running, long atMillis, long elapsedNanos) {
+            this.running = running;
+            this.atMillis = atMillis;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        long elapsedNanosAt(long nowMillis) {
+            return running ? elapsedNanos + Math.max(0, nowMillis - atMillis) * 1_000_000 : elapsedNanos;
+        }
+    }
+
+    /** Everything the journal describes; also what a snapshot is built from. */
+    static final class State {
+        final Map<Long, AlarmRecord> alarms = new LinkedHashMap<>();
+        final Map<Long, TimerRecord> timers = new LinkedHashMap<>();
+        StopwatchRecord stopwatch;
+        long[] laps = new long[0];
+        int lapCount;
+
+        void lap(int index, long elapsedNanos) {
+            if (index >= laps.length) laps = Arrays.copyOf(laps, Math.max(index + 1, laps.length * 2));
+            laps[index] = elapsedNanos;
+            lapCount = Math.max(lapCount, index + 1);
+        }
+    }
+
+    private final Path snapshotPath;
+    private final FileChannel channel;
+    private final State recovered;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "clock-journal");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Object ioLock = new Object();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(4096);
+    private boolean flushScheduled;
+    private final AtomicBoolean compactPending = new AtomicBoolean();
+    private volatile int records;
+
+    private StateJournal(Path dir, FileChannel channel, State recovered, int records) {
+        this.snapshotPath = dir.resolve("state.snapshot");
+        this.channel = channel;
+        this.recovered = recovered;
+        this.records = records;
+    }
+
+    static Path defaultDir() {
+        return Path.of(System.getProperty("user.home"), ".elegantclock");
+    }
+
+    /** Opens the journal in dir, recovering the snapshot and the valid journal tail. */
+    static StateJournal open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        State state = new State();
+        Path snapshot = dir.resolve("state.snapshot");
+        if (Files.exists(snapshot)) {
+            try (FileChannel ch = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                long end = replay(ch, SNAPSHOT_MAGIC, state);
+                if (end != ch.size()) throw new IOException("Corrupt snapshot " + snapshot);
+            }
+        }
+        FileChannel ch = FileChannel.open(dir.resolve("state.journal"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int[] count = new int[1];
+            long end;
+            if (ch.size() < JOURNAL_MAGIC.length) {
+                ch.truncate(0);
+                ch.write(ByteBuffer.wrap(JOURNAL_MAGIC), 0);
+                ch.force(true);
+                end = JOURNAL_MAGIC.length;
+            } else {
+                end = replay(ch, JOURNAL_MAGIC, state, count);
+                // Cut off a torn or corrupt tail so new records follow valid ones
+                if (end < ch.size()) {
+                    ch.truncate(end);
+                    ch.force(true);
+                }
+            }
+            ch.position(end);
+            return new StateJournal(dir, ch, state, count[0]);
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    /** State as of the last run; build the live objects from it, then compact. */
+    State recovered() {
+        return recovered;
+    }
+
+    // Appends; each is durable within GROUP_COMMIT_MILLIS plus an fsync
+    void alarmSet(long id, long fireAtMillis, String label, String rule) {
+        AlarmRecord a = new AlarmRecord(id, fireAtMillis, label, rule);
+        append(out -> writeAlarm(out, a));
+    }
+
+    void alarmCleared(long id) {
+        append(out -> {
+            out.writeByte(ALARM_CLEAR);
+            out.writeLong(id);
+        });
+    }
+
+    void timerSet(TimerRecord t) {
+        append(out -> writeTimer(out, t));
+    }
+
+    void timerCleared(long id) {
+        append(out -> {
+            out.writeByte(TIMER_CLEAR);
+            out.writeLong(id);
+        });
+    }
+
+    void stopwatch(StopwatchRecord s) {
+        append(out -> writeStopwatch(out, s));
+    }
+
+    void lap(int index, long elapsedNanos) {
+        append(out -> {
+            out.writeByte(LAP);
+            out.writeInt(index);
+            out.writeLong(elapsedNanos);
+        });
+    }
+
+    boolean needsCompaction() {
+        return records >= COMPACT_AFTER_RECORDS;
+    }
+
+    /**
+     * Replaces snapshot and journal with the given state. The state is taken
+     * while appends are blocked, so every change is either in the snapshot or
+     * appended after it (or both, which replays harmlessly).
+     */
+    void compact(Supplier<State> current) throws IOException {
+        synchronized (ioLock) {
+            State state;
+            synchronized (this) {
+                state = current.get();
+                pending.reset();
+                flushScheduled = false;
+            }
+            ByteArrayOutputStream snap = new ByteArrayOutputStream(8192);
+            snap.write(SNAPSHOT_MAGIC);
+            for (AlarmRecord a : state.alarms.values()) frame(snap, out -> writeAlarm(out, a));
+            for (TimerRecord t : state.timers.values()) frame(snap, out -> writeTimer(out, t));
+            if (state.stopwatch != null) frame(snap, out -> writeStopwatch(out, state.stopwatch));
+            for (int i = 0; i < state.lapCount; i++) {
+                int index = i;
+                frame(snap, out -> {
+                    out.writeByte(LAP);
+                    out.writeInt(index);
+                    out.writeLong(state.laps[index]);
+                });
+            }
+
+            Path tmp = snapshotPath.resolveSibling("state.snapshot.tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ch.write(ByteBuffer.wrap(snap.toByteArray()));
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // Only once the snapshot is durable may the journal be emptied
+            channel.truncate(JOURNAL_MAGIC.length);
+            channel.position(JOURNAL_MAGIC.length);
+            channel.force(true);
+            records = 0;
+        }
+    }
+
+    /**
+     * Runs compact() on the "clock-journal" thread, between group commits, so
+     * its file writes and fsyncs never hold up the caller. At most one
+     * compaction is pending; further requests are dropped until it has run.
+     */
+    void compactLater(Supplier<State> current) {
+        if (!compactPending.compareAndSet(false, true)) return;
+        try {
+            io.execute(() -> {
+                try {
+                    compact(current);
+                } catch (IOException ex) {
+                    System.err.println("Could not compact state journal: " + ex.getMessage());
+                    ex.printStackTrace();
+                } finally {
+                    compactPending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Closed; the next run starts from the journal as it is
+            compactPending.set(false);
+        }
+    }
+
+    /** Writes and fsyncs everything appended so far; waits for it. A no-op once closed. */
+    void sync() throws IOException {
+        Future<?> f;
+        try {
+            f = io.submit(this::flush);
+        } catch (RejectedExecutionException ex) {
+            // close() already synced; the shutdown hook may still call in afterwards
+            return;
+        }
+        try {
+            f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        io.shutdown();
+        synchronized (ioLock) {
+            channel.close();
+        }
+    }
+
+    // Journal I/O
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private void append(RecordWriter w) {
+        synchronized (this) {
+            try {
+                frame(pending, w);
+            } catch (IOException ex) {
+                // ByteArrayOutputStream does not throw; an oversized record is a bug
+                throw new IllegalStateException(ex);
+            }
+            if (flushScheduled) return;
+            flushScheduled = true;
+        }
+        io.execute(() -> {
+            try {
+                Thread.sleep(GROUP_COMMIT_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            flush();
+        });
+    }
+
+    private void flush() {
+        synchronized (ioLock) {
+            byte[] batch;
+            int n;
+            synchronized (this) {
+                flushScheduled = false;
+                if (pending.size() == 0) return;
+                batch = pending.toByteArray();
+                n = countRecords(batch);
+                pending.reset();
+            }
+            try {
+                ByteBuffer buf = ByteBuffer.wrap(batch);
+                while (buf.hasRemaining()) channel.write(buf);
+                channel.force(false);
+                records += n;
+            } catch (IOException ex) {
+                System.err.println("Could not write state journal: " + ex.getMessage());
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    private static int countRecords(byte[] batch) {
+        int n = 0;
+        for (int p = 0; p < batch.length; n++) p += 8 + ByteBuffer.wrap(batch, p, 4).getInt();
+        return n;
+    }
+
+    // Record layout: int payload length, int CRC32 of the payload, payload
+    private static void frame(ByteArrayOutputStream target, RecordWriter w) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        w.write(new DataOutputStream(payload));
+        byte[] bytes = payload.toByteArray();
+        if (bytes.length > MAX_RECORD_BYTES) throw new IOException("Record too large: " + bytes.length);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(bytes.length);
+        out.writeInt((int) crc.getValue());
+        out.write(bytes);
+    }
+
+    // One-shot alarms keep the original record type so older versions can still read them
+    private static void writeAlarm(DataOutputStream out, AlarmRecord a) throws IOException {
+        out.writeByte(a.rule == null ? ALARM_SET : ALARM_RULE_SET);
+        out.writeLong(a.id);
+        out.writeLong(a.fireAtMillis);
+        out.writeUTF(a.label);
+        if (a.rule != null) out.writeUTF(a.rule);
+    }
+
+    private static void writeTimer(DataOutputStream out, TimerRecord t) throws IOException {
+        out.writeByte(TIMER_SET);
+        out.writeLong(t.id);
+        out.writeUTF(t.name);
+        out.writeLong(t.durationNanos);
+        out.writeLong(t.deadlineMillis);
+        out.writeLong(t.pausedRemainingNanos);
+    }
+
+    private static void writeStopwatch(DataOutputStream out, StopwatchRecord s) throws IOException {
+        out.writeByte(STOPWATCH);
+        out.writeBoolean(s.running);
+        out.writeLong(s.atMillis);
+        out.writeLong(s.elapsedNanos);
+    }
+
+    private static long replay(FileChannel ch, byte[] magic, State state) throws IOException {
+        return replay(ch, magic, state, new int[1]);
+    }
+
+    // Applies records from the start of the file; returns the offset after the last valid one
+    private static long replay(FileChannel ch, byte[] magic, State state, int[] count) throws IOException {
+        long size = ch.size();
+        if (size > Integer.MAX_VALUE) throw new IOException("State file too large");
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, buf.position()) < 0) break;
+        }
+        buf.flip();
+        byte[] head = new byte[magic.length];
+        if (buf.remaining() < head.length) throw new IOException("Not a state file");
+        buf.get(head);
+        if (!Arrays.equals(head, magic)) throw new IOException("Not a state file");
+        CRC32 crc = new CRC32();
+        while (buf.remaining() >= 8) {
+            int start = buf.position();
+            int len = buf.getInt();
+            int sum = buf.getInt();
+            if (len < 1 || len > MAX_RECORD_BYTES || len > buf.remaining()) return start;
+            byte[] payload = new byte[len];
+            buf.get(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != sum) return start;
+            try {
+                apply(state, payload);
+            } catch (IOException ex) {
+                // Checksum fine but unreadable: written by a newer version; stop here
+                return start;
+            }
+            count[0]++;
+        }
+        return buf.position();
+    }
+
+    private static void apply(State state, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case ALARM_SET: {
+                long id = in.readLong();
+                state.alarms.put(id, new AlarmRecord(id, in.readLong(), in.readUTF(), null));
+                break;
+            }
+            case ALARM_RULE_SET: {
+                long id = in.readLong();
+                state.alarms.put(id, new AlarmRecord(id, in.readLong(), in.readUTF(), in.readUTF()));
+                break;
+            }
+            case ALARM_CLEAR:
+                state.alarms.remove(in.readLong());
+                break;
+            case TIMER_SET: {
+                long id = in.readLong();
+                state.timers.put(id, new TimerRecord(id, in.readUTF(), in.readLong(), in.readLong(), in.readLong()));
+                break;
+            }
+            case TIMER_CLEAR:
+                state.timers.remove(in.readLong());
+                break;
+            case STOPWATCH:
+                state.stopwatch = new StopwatchRecord(in.readBoolean(), in.readLong(), in.readLong());
+                // A reset stopwatch has no laps
+                if (!state.stopwatch.running && state.stopwatch.elapsedNanos == 0) state.lapCount = 0;
+                break;
+            case LAP:
+                state.lap(in.readInt(), in.readLong());
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package clock;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * StopwatchCore
+ * Stopwatch state on the monotonic System.nanoTime clock, so NTP or manual
+ * wall-clock changes never affect a running time. The whole state is one
+ * immutable Snapshot swapped by compare-and-set: transitions are atomic from any
+ * thread, and readers get a consistent view without locks. Elapsed time
+ * accumulates across pause/resume until reset.
+ */
+final class StopwatchCore {
+    static final class Snapshot {
+        final boolean running;
+        /** nanoTime when the current run segment started; meaningful only while running. */
+        final long segmentStart;
+        /** Time accumulated by previous run segments. */
+        final long accumulated;
+        final int laps;
+        /** Elapsed time at the most recent lap, 0 if none. */
+        final long lastLap;
+
+        Snapshot(boolean running, long segmentStart, long accumulated, int laps, long lastLap) {
+            this.running = running;
+            this.segmentStart = segmentStart;
+            this.accumulated = accumulated;
+            this.laps = laps;
+            this.lastLap = lastLap;
+        }
+
+        long elapsedNanos(long now) {
+            return running ? accumulated + (now - segmentStart) : accumulated;
+        }
+    }
+
+    private static final Snapshot RESET = new Snapshot(false, 0, 0, 0, 0);
+
+    private final AtomicReference<Snapshot> state = new AtomicReference<>(RESET);
+    private final LongSupplier nanoClock;
+
+    StopwatchCore() {
+        this(System::nanoTime);
+    }
+
+    StopwatchCore(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    /** Starts from reset or resumes from pause; false if already running. */
+    boolean start() {
+        while (true) {
+            Snapshot s = state.get();
+            if (s.running) return false;
+            Snapshot n = new Snapshot(true, nanoClock.getAsLong(), s.accumulated, s.laps, s.lastLap);
+            if (state.compareAndSet(s, n)) return true;
+        }
+    }
+
+    /** Pauses, keeping the accumulated time; false if not running. */
+    boolean pause() {
+        while (true) {
+            Snapshot s = state.get();
+            if (!s.running) return false;
+            long now = nanoClock.getAsLong();
+            Snapshot n = new Snapshot(false, 0, s.elapsedNanos(now), s.laps, s.lastLap);
+            if (state.compareAndSet(s, n)) return true;
+        }
+    }
+
+    /** Records a lap and returns the elapsed time at the lap, or -1 if not running. */
+    long lap() {
+        while (true) {
+            Snapshot s = state.get();
+            if (!s.running) return -1;
+            long elapsed = s.elapsedNanos(nanoClock.getAsLong());
+            Snapshot n = new Snapshot(true, s.segmentStart, s.accumulated, s.laps + 1, elapsed);
+            if (state.compareAndSet(s, n)) return elapsed;
+        }
+    }
+
+    void reset() {
+        state.set(RESET);
+    }
+
+    /** Replaces the state, e.g. with one recovered after a restart; a running stopwatch continues from now. */
+    void restore(boolean running, long elapsedNanos, int laps, long lastLap) {
+        state.set(new Snapshot(running, running ? nanoClock.getAsLong() : 0, elapsedNanos, laps, lastLap));
+    }
+
+    Snapshot snapshot() {
+        return state.get();
+    }
+
+    long elapsedNanos() {
+        return state.get().elapsedNanos(nanoClock.getAsLong());
+    }
+
+    boolean isRunning() {
+        return state.get().running;
+    }
+}
@@ -0,0 +1,144 @@
+package clock;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TickScheduler
+ * One deadline-ordered scheduler shared by the clock, alarm, timer, stopwatch
+ * and toast features. Runs on a fixed number of daemon threads so it can never
+ * keep the JVM alive, and hands out cancellable handles instead of Timer objects.
+ */
+final class TickScheduler {
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    TickScheduler(int threads) {
+        AtomicInteger n = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "clock-tick-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        executor = new ScheduledThreadPoolExecutor(threads, factory);
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+    }
+
+    /** Cancellation handle for a scheduled task. */
+    static final class Handle {
+        private final ScheduledFuture<?> future;
+
+        private Handle(ScheduledFuture<?> future) {
+            this.future = future;
+        }
+
+        void cancel() {
+            future.cancel(false);
+        }
+
+        boolean isCancelled() {
+            return future.isCancelled();
+        }
+
+        boolean isDone() {
+            return future.isDone();
+        }
+
+        long delay(TimeUnit unit) {
+            return future.getDelay(unit);
+        }
+    }
+
+    Handle schedule(Runnable task, long delay, TimeUnit unit) {
+        submitted.incrementAndGet();
+        return new Handle(executor.schedule(wrap(task), Math.max(0, delay), unit));
+    }
+
+    Handle scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        submitted.incrementAndGet();
+        return new Handle(executor.scheduleAtFixedRate(wrap(task), Math.max(0, initialDelay), period, unit));
+    }
+
+    /**
+     * As schedule(), recording into lateness how far past its due time the
+     * task actually started. A null histogram schedules the plain task.
+     */
+    Handle schedule(Runnable task, long delay, TimeUnit unit, LatencyHistogram lateness) {
+        if (lateness == null) return schedule(task, delay, unit);
+        long due = System.nanoTime() + unit.toNanos(Math.max(0, delay));
+        return schedule(() -> {
+            lateness.record(System.nanoTime() - due);
+            task.run();
+        }, delay, unit);
+    }
+
+    /** As scheduleAtFixedRate(), recording each run's lateness against its slot in the fixed-rate sequence. */
+    Handle scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit, LatencyHistogram lateness) {
+        if (lateness == null) return scheduleAtFixedRate(task, initialDelay, period, unit);
+        long first = System.nanoTime() + unit.toNanos(Math.max(0, initialDelay));
+        long periodNanos = unit.toNanos(period);
+        // Runs of one periodic task never overlap, and the executor orders them
+        long[] runs = new long[1];
+        return scheduleAtFixedRate(() -> {
+            lateness.record(System.nanoTime() - (first + runs[0]++ * periodNanos));
+            task.run();
+        }, initialDelay, period, unit);
+    }
+
+    /** Cancels a possibly-null handle; returns null so callers can clear their field in one line. */
+    static Handle cancel(Handle h) {
+        if (h != null) h.cancel();
+        return null;
+    }
+
+    // Metrics
+    int queuedTasks() {
+        return executor.getQueue().size();
+    }
+
+    int activeThreads() {
+        return executor.getActiveCount();
+    }
+
+    int threadCount() {
+        return executor.getCorePoolSize();
+    }
+
+    long submittedTasks() {
+        return submitted.get();
+    }
+
+    long executedRuns() {
+        return executed.get();
+    }
+
+    long failedRuns() {
+        return failed.get();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // A periodic task that throws is silently suppressed by the executor, so log and keep going
+    private Runnable wrap(Runnable task) {
+        return () -> {
+            executed.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                failed.incrementAndGet();
+                System.err.println("Scheduled task failed: " + t);
+                t.printStackTrace();
+            }
+        };
+    }
+}
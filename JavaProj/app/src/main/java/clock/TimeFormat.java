@@ -0,0 +1,89 @@
+package clock;
+
+/**
+ * TimeFormat
+ * Allocation-free formatting of the stopwatch (mm:ss.cc), timer (mm:ss) and
+ * clock (hh:mm:ss a) strings into caller-owned char buffers, using two-digit
+ * lookup tables instead of String.format. Each method returns the number of
+ * chars written; buffers of MAX_LENGTH chars are always large enough.
+ */
+final class TimeFormat {
+    static final int MAX_LENGTH = 24;
+
+    private static final char[] TENS = new char[100];
+    private static final char[] ONES = new char[100];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            TENS[i] = (char) ('0' + i / 10);
+            ONES[i] = (char) ('0' + i % 10);
+        }
+    }
+
+    private TimeFormat() {
+    }
+
+    /** mm:ss.cc, minutes widen past 99 like %02d does. */
+    static int stopwatch(long ms, char[] buf) {
+        if (ms < 0) ms = 0;
+        int centis = (int) ((ms % 1000) / 10);
+        int seconds = (int) (ms / 1000 % 60);
+        long minutes = ms / 60000;
+        int i = minutes(minutes, buf, 0);
+        buf[i++] = ':';
+        i = twoDigits(seconds, buf, i);
+        buf[i++] = '.';
+        return twoDigits(centis, buf, i);
+    }
+
+    /** mm:ss for a whole number of seconds. */
+    static int seconds(long s, char[] buf) {
+        if (s < 0) s = 0;
+        int i = minutes(s / 60, buf, 0);
+        buf[i++] = ':';
+        return twoDigits((int) (s % 60), buf, i);
+    }
+
+    /** hh:mm:ss AM/PM from a 24-hour time of day. */
+    static int clock(int hour, int minute, int second, char[] buf) {
+        int h12 = hour % 12 == 0 ? 12 : hour % 12;
+        int i = twoDigits(h12, buf, 0);
+        buf[i++] = ':';
+        i = twoDigits(minute, buf, i);
+        buf[i++] = ':';
+        i = twoDigits(second, buf, i);
+        buf[i++] = ' ';
+        buf[i++] = hour < 12 ? 'A' : 'P';
+        buf[i++] = 'M';
+        return i;
+    }
+
+    // String conveniences for the cold paths (lap entries, notifications)
+    static String stopwatch(long ms) {
+        char[] buf = new char[MAX_LENGTH];
+        return new String(buf, 0, stopwatch(ms, buf));
+    }
+
+    static String seconds(long s) {
+        char[] buf = new char[MAX_LENGTH];
+        return new String(buf, 0, seconds(s, buf));
+    }
+
+    private static int twoDigits(int v, char[] buf, int i) {
+        buf[i] = TENS[v];
+        buf[i + 1] = ONES[v];
+        return i + 2;
+    }
+
+    private static int minutes(long m, char[] buf, int i) {
+        if (m < 100) return twoDigits((int) m, buf, i);
+        int digits = 0;
+        for (long t = m; t > 0; t /= 10) digits++;
+        int end = i + digits;
+        for (int p = end - 1; p >= i; p--) {
+            buf[p] = (char) ('0' + m % 10);
+            m /= 10;
+        }
+        return end;
+    }
+}
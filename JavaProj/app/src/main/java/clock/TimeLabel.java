@@ -0,0 +1,143 @@
+package clock;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.util.Map;
+
+/**
+ * TimeLabel
+ * Centered single-line text component backed by a reusable char buffer.
+ * Its preferred size comes from a fixed template string, so changing the text
+ * never revalidates the layout, and unchanged text never repaints.
+ * Time strings are drawn as blits from a GlyphAtlas and only the cells whose
+ * characters changed are repainted; other text falls back to drawChars.
+ * Must be updated on the EDT.
+ */
+class TimeLabel extends JComponent {
+    private static final AffineTransform IDENTITY = new AffineTransform();
+
+    private final char[] chars = new char[TimeFormat.MAX_LENGTH];
+    private final char[] scratch = new char[TimeFormat.MAX_LENGTH];
+    private int length;
+    private final String template;
+    private GlyphAtlas atlas;
+
+    TimeLabel(String text) {
+        this.template = text;
+        setText(text);
+        setOpaque(false);
+    }
+
+    /** Copies len chars from src; repaints only the cells that changed. */
+    void setChars(char[] src, int len) {
+        len = Math.min(len, chars.length);
+        int first = -1, last = -1;
+        int common = Math.min(len, length);
+        for (int i = 0; i < common; i++) {
+            if (chars[i] != src[i]) {
+                if (first < 0) first = i;
+                last = i;
+            }
+        }
+        if (first < 0 && len == length) return;
+        boolean sameShape = len == length;
+        System.arraycopy(src, 0, chars, 0, len);
+        length = len;
+        if (sameShape) {
+            repaintCells(first, last);
+        } else {
+            repaint();
+        }
+    }
+
+    void setText(CharSequence text) {
+        int len = Math.min(text.length(), scratch.length);
+        for (int i = 0; i < len; i++) scratch[i] = text.charAt(i);
+        setChars(scratch, len);
+    }
+
+    String getText() {
+        return new String(chars, 0, length);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) return super.getPreferredSize();
+        FontMetrics fm = getFontMetrics(getFont());
+        Insets in = getInsets();
+        return new Dimension(fm.stringWidth(template) + in.left + in.right,
+                fm.getHeight() + in.top + in.bottom);
+    }
+
+    // Cells keep their positions while the length and glyph widths stay the same,
+    // so only the span from the first to the last changed cell is invalidated
+    private void repaintCells(int first, int last) {
+        GlyphAtlas a = atlas;
+        if (a == null || !GlyphAtlas.covers(chars, length)) {
+            repaint();
+            return;
+        }
+        double s = a.scale;
+        double origin = originX(a.width(chars, length), s);
+        int start = 0;
+        for (int i = 0; i < first; i++) start += a.width(chars[i]);
+        int end = start;
+        for (int i = first; i <= last; i++) end += a.width(chars[i]);
+        int x0 = (int) Math.floor((origin + start) / s) - 1;
+        int x1 = (int) Math.ceil((origin + end) / s) + 1;
+        repaint(x0, 0, x1 - x0, getHeight());
+    }
+
+    // Left edge of the text relative to the component, in device pixels
+    private double originX(int textWidth, double scale) {
+        Insets in = getInsets();
+        return in.left * scale + ((getWidth() - in.left - in.right) * scale - textWidth) / 2;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        AffineTransform at = g2.getTransform();
+        double scale = at.getScaleX();
+        if (at.getShearX() != 0 || at.getShearY() != 0 || scale != at.getScaleY()
+                || !GlyphAtlas.covers(chars, length)) {
+            paintText(g2);
+            return;
+        }
+        GlyphAtlas a = atlas;
+        if (a == null || !a.matches(getFont(), getForeground(), scale)) {
+            a = atlas = GlyphAtlas.get(getFont(), getForeground(), scale, getGraphicsConfiguration());
+        }
+        Insets in = getInsets();
+        int x = (int) Math.round(at.getTranslateX() + originX(a.width(chars, length), scale));
+        int y = (int) Math.round(at.getTranslateY() + in.top * scale
+                + ((getHeight() - in.top - in.bottom) * scale - a.height) / 2);
+        g2.setTransform(IDENTITY);
+        for (int i = 0; i < length; i++) {
+            a.draw(g2, chars[i], x, y);
+            x += a.width(chars[i]);
+        }
+        g2.setTransform(at);
+    }
+
+    private void paintText(Graphics2D g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        Object hints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        if (hints instanceof Map) {
+            g2.addRenderingHints((Map<?, ?>) hints);
+        } else {
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        }
+        g2.setFont(getFont());
+        g2.setColor(getForeground());
+        FontMetrics fm = g2.getFontMetrics();
+        Insets in = getInsets();
+        int w = getWidth() - in.left - in.right;
+        int h = getHeight() - in.top - in.bottom;
+        int x = in.left + (w - fm.charsWidth(chars, 0, length)) / 2;
+        int y = in.top + (h - fm.getHeight()) / 2 + fm.getAscent();
+        g2.drawChars(chars, 0, length, x, y);
+        g2.dispose();
+    }
+}
@@ -0,0 +1,133 @@
+package clock;
+
+import javax.swing.JLabel;
+import javax.swing.JLayeredPane;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.border.EmptyBorder;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ToastManager
+ * Short notifications drawn by one reused label in the frame's popup layer,
+ * so a message costs no native window and no thread. Messages show one at a
+ * time in order; a message equal to the one on screen or one already waiting
+ * is merged into it ("Alarm set (x2)") instead of queued again, and the
+ * backlog is capped by dropping the oldest waiting message. Timeouts run on
+ * the shared TickScheduler. EDT only.
+ */
+final class ToastManager {
+    static final long DISPLAY_MILLIS = 1400;
+    /** How long a message stays up when others are waiting behind it. */
+    static final long MIN_DISPLAY_MILLIS = 700;
+    static final int MAX_WAITING = 4;
+    private static final int OFFSET_ABOVE_CENTER = 80;
+
+    private static final class Toast {
+        final String message;
+        int count = 1;
+
+        Toast(String message) {
+            this.message = message;
+        }
+
+        String text() {
+            return count == 1 ? message : message + " (x" + count + ")";
+        }
+    }
+
+    private final JLayeredPane layer;
+    private final TickScheduler scheduler;
+    private final JLabel view = new JLabel("", SwingConstants.CENTER);
+    private final ArrayDeque<Toast> waiting = new ArrayDeque<>();
+    private Toast showing;
+    private long shownAt;
+    private TickScheduler.Handle expiry;
+    // Bumped whenever the showing toast changes or is extended, so stale expiries are ignored
+    private int generation;
+
+    ToastManager(JLayeredPane layer, TickScheduler scheduler) {
+        this.layer = layer;
+        this.scheduler = scheduler;
+        view.setBorder(new EmptyBorder(10, 18, 10, 18));
+        view.setBackground(new Color(40, 44, 50));
+        view.setForeground(Color.WHITE);
+        view.setOpaque(true);
+        view.setVisible(false);
+        layer.add(view, JLayeredPane.POPUP_LAYER);
+        layer.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                if (view.isVisible()) place();
+            }
+        });
+    }
+
+    void show(String message) {
+        if (showing != null && showing.message.equals(message)) {
+            showing.count++;
+            display(showing);
+            return;
+        }
+        for (Toast t : waiting) {
+            if (t.message.equals(message)) {
+                t.count++;
+                return;
+            }
+        }
+        if (showing == null) {
+            display(new Toast(message));
+            return;
+        }
+        if (waiting.size() == MAX_WAITING) waiting.pollFirst();
+        waiting.addLast(new Toast(message));
+        if (waiting.size() == 1) {
+            // Let the current one finish sooner now that another waits
+            long shown = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - shownAt);
+            armExpiry(Math.max(0, MIN_DISPLAY_MILLIS - shown));
+        }
+    }
+
+    private void display(Toast t) {
+        showing = t;
+        shownAt = System.nanoTime();
+        view.setText(t.text());
+        place();
+        view.setVisible(true);
+        view.repaint();
+        armExpiry(waiting.isEmpty() ? DISPLAY_MILLIS : MIN_DISPLAY_MILLIS);
+    }
+
+    private void armExpiry(long delayMillis) {
+        int gen = ++generation;
+        expiry = TickScheduler.cancel(expiry);
+        expiry = scheduler.schedule(() -> SwingUtilities.invokeLater(() -> expire(gen)),
+                delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void expire(int gen) {
+        if (gen != generation) return;
+        expiry = null;
+        Toast next = waiting.pollFirst();
+        if (next != null) {
+            display(next);
+            return;
+        }
+        showing = null;
+        view.setVisible(false);
+    }
+
+    // Centered horizontally, a little above the middle, like the dialogs it replaces
+    private void place() {
+        Dimension d = view.getPreferredSize();
+        int w = Math.min(d.width, Math.max(0, layer.getWidth() - 32));
+        int x = (layer.getWidth() - w) / 2;
+        int y = Math.max(0, (layer.getHeight() - d.height) / 2 - OFFSET_ABOVE_CENTER);
+        view.setBounds(x, y, w, d.height);
+    }
+}
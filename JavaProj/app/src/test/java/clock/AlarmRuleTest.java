@@ -0,0 +1,162 @@
+package clock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlarmRuleTest {
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    private static Instant at(String localDateTime, ZoneId zone) {
+        return LocalDateTime.parse(localDateTime).atZone(zone).toInstant();
+    }
+
+    @Test
+    void dailyRingsLaterTodayOrTomorrow() {
+        AlarmRule r = AlarmRule.daily(LocalTime.of(7, 30), UTC);
+        assertEquals(LocalDateTime.parse("2026-03-10T07:30"), r.nextAfter(at("2026-03-10T06:00", UTC)).toLocalDateTime());
+        // Strictly after: the occurrence that is due right now is not returned again
+        assertEquals(LocalDateTime.parse("2026-03-11T07:30"), r.nextAfter(at("2026-03-10T07:30", UTC)).toLocalDateTime());
+    }
+
+    @Test
+    void timeInDstGapShiftsForward() {
+        // New York skips 02:00-03:00 on 2026-03-08
+        ZonedDateTime next = AlarmRule.daily(LocalTime.of(2, 30), NEW_YORK).nextAfter(at("2026-03-08T00:00", NEW_YORK));
+        assertEquals(LocalDateTime.parse("2026-03-08T03:30"), next.toLocalDateTime());
+        assertEquals(ZoneOffset.ofHours(-4), next.getOffset());
+    }
+
+    @Test
+    void timeInDstOverlapRingsOnceAtEarlierOffset() {
+        // New York repeats 01:00-02:00 on 2026-11-01
+        AlarmRule r = AlarmRule.daily(LocalTime.of(1, 30), NEW_YORK);
+        ZonedDateTime first = r.nextAfter(at("2026-11-01T00:00", NEW_YORK));
+        assertEquals(LocalDateTime.parse("2026-11-01T01:30"), first.toLocalDateTime());
+        assertEquals(ZoneOffset.ofHours(-4), first.getOffset());
+        ZonedDateTime second = r.nextAfter(first.toInstant());
+        assertEquals(LocalDateTime.parse("2026-11-02T01:30"), second.toLocalDateTime());
+    }
+
+    @Test
+    void monthlyDay31ClampsToMonthEnd() {
+        AlarmRule r = AlarmRule.monthly(LocalTime.of(9, 0), UTC, 31);
+        ZonedDateTime feb = r.nextAfter(at("2026-02-01T00:00", UTC));
+        assertEquals(LocalDate.of(2026, 2, 28), feb.toLocalDate());
+        assertEquals(LocalDate.of(2026, 3, 31), r.nextAfter(feb.toInstant()).toLocalDate());
+        assertEquals(LocalDate.of(2026, 4, 30), r.nextAfter(at("2026-04-01T00:00", UTC)).toLocalDate());
+        assertEquals(LocalDate.of(2028, 2, 29), r.nextAfter(at("2028-02-01T00:00", UTC)).toLocalDate());
+    }
+
+    @Test
+    void monthlyPastThisMonthsDayMovesToNextMonth() {
+        AlarmRule r = AlarmRule.monthly(LocalTime.of(9, 0), UTC, 15);
+        assertEquals(LocalDate.of(2026, 2, 15), r.nextAfter(at("2026-01-15T09:00", UTC)).toLocalDate());
+        assertEquals(LocalDate.of(2027, 1, 15), r.nextAfter(at("2026-12-20T00:00", UTC)).toLocalDate());
+    }
+
+    @Test
+    void weeklyWrapsAroundToNextWeek() {
+        AlarmRule r = AlarmRule.weekly(LocalTime.of(7, 0), UTC, DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+        // 2026-10-17 is a Saturday
+        ZonedDateTime next = r.nextAfter(at("2026-10-17T12:00", UTC));
+        assertEquals(LocalDate.of(2026, 10, 19), next.toLocalDate());
+        assertEquals(DayOfWeek.MONDAY, next.getDayOfWeek());
+        // Friday after its time goes to Monday, not the next Friday
+        assertEquals(LocalDate.of(2026, 10, 26), r.nextAfter(at("2026-10-23T08:00", UTC)).toLocalDate());
+        // Sunday to Monday is a wrap from the last bit to the first
+        assertEquals(LocalDate.of(2026, 10, 19), r.nextAfter(at("2026-10-18T23:59", UTC)).toLocalDate());
+    }
+
+    @Test
+    void weekdaysAndWeekendsParse() {
+        Instant friday = at("2026-10-16T12:00", UTC);
+        assertEquals(DayOfWeek.MONDAY, AlarmRule.parse("weekdays", LocalTime.NOON, UTC).nextAfter(friday).getDayOfWeek());
+        assertEquals(DayOfWeek.SATURDAY, AlarmRule.parse("weekends", LocalTime.NOON, UTC).nextAfter(friday).getDayOfWeek());
+        assertEquals(DayOfWeek.WEDNESDAY,
+                AlarmRule.parse("weekly:wed,Friday", LocalTime.of(6, 0), UTC).nextAfter(friday).getDayOfWeek());
+    }
+
+    @Test
+    void exceptionDatesAreSkipped() {
+        AlarmRule r = AlarmRule.daily(LocalTime.of(7, 0), UTC)
+                .except(LocalDate.of(2026, 12, 25))
+                .except(LocalDate.of(2026, 12, 26));
+        assertEquals(LocalDate.of(2026, 12, 27), r.nextAfter(at("2026-12-24T08:00", UTC)).toLocalDate());
+
+        AlarmRule weekly = AlarmRule.weekly(LocalTime.of(7, 0), UTC, DayOfWeek.MONDAY).except(LocalDate.of(2026, 10, 19));
+        assertEquals(LocalDate.of(2026, 10, 26), weekly.nextAfter(at("2026-10-17T12:00", UTC)).toLocalDate());
+    }
+
+    @Test
+    void exceptionsBeforeADateArePruned() {
+        AlarmRule r = AlarmRule.daily(LocalTime.of(7, 0), UTC)
+                .except(LocalDate.of(2026, 1, 1))
+                .except(LocalDate.of(2026, 1, 5))
+                .except(LocalDate.of(2026, 1, 9));
+        assertEquals(List.of(LocalDate.of(2026, 1, 5), LocalDate.of(2026, 1, 9)),
+                List.copyOf(r.withoutExceptionsBefore(LocalDate.of(2026, 1, 5)).exceptions()));
+        assertSame(r, r.withoutExceptionsBefore(LocalDate.of(2026, 1, 1)));
+    }
+
+    @Test
+    void encodeDecodeRoundTrips() {
+        List<AlarmRule> rules = List.of(
+                AlarmRule.daily(LocalTime.of(6, 45), NEW_YORK),
+                AlarmRule.parse("weekdays", LocalTime.of(7, 30), ZoneId.of("Europe/Berlin")),
+                AlarmRule.weekly(LocalTime.of(22, 0), UTC, DayOfWeek.SUNDAY, DayOfWeek.WEDNESDAY)
+                        .except(LocalDate.of(2027, 1, 3)),
+                AlarmRule.monthly(LocalTime.of(9, 0), ZoneId.of("Asia/Kolkata"), 31)
+                        .except(LocalDate.of(2026, 12, 31))
+                        .except(LocalDate.of(2027, 1, 31)));
+        Instant from = at("2026-10-17T00:00", UTC);
+        for (AlarmRule r : rules) {
+            AlarmRule back = AlarmRule.decode(r.encode());
+            assertEquals(r.encode(), back.encode());
+            assertEquals(r.kind, back.kind);
+            assertEquals(r.time, back.time);
+            assertEquals(r.zone, back.zone);
+            assertEquals(r.exceptions(), back.exceptions());
+            assertEquals(r.nextAfter(from), back.nextAfter(from));
+        }
+        assertEquals("weekly=MON,WED;at=07:30;zone=Europe/Berlin;except=2026-12-25,2027-01-01",
+                AlarmRule.decode("weekly=MON,WED;at=07:30;zone=Europe/Berlin;except=2026-12-25,2027-01-01").encode());
+    }
+
+    @Test
+    void secondsAreDropped() {
+        AlarmRule r = AlarmRule.daily(LocalTime.of(7, 30, 59, 5), UTC);
+        assertEquals(LocalTime.of(7, 30), r.time);
+        assertTrue(r.encode().contains("at=07:30;"));
+    }
+
+    @Test
+    void badInputThrows() {
+        LocalTime t = LocalTime.of(7, 0);
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.parse("hourly", t, UTC));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.parse("weekly:", t, UTC));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.parse("weekly:MO", t, UTC));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.parse("weekly:Mon,Funday", t, UTC));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.parse("monthly:x", t, UTC));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.monthly(t, UTC, 0));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.monthly(t, UTC, 32));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.weekly(t, UTC));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.decode("daily;zone=UTC"));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.decode("daily;weekly=MON;at=07:00;zone=UTC"));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRule.decode("hourly;at=07:00;zone=UTC"));
+    }
+}
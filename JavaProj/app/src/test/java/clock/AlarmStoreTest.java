@@ -0,0 +1,117 @@
+package clock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlarmStoreTest {
+    private final TickScheduler scheduler = new TickScheduler(2);
+    private final List<String> fired = new ArrayList<>();
+    private final List<Long> late = new ArrayList<>();
+    private CountDownLatch latch = new CountDownLatch(0);
+
+    private final AlarmStore store = new AlarmStore(scheduler, (alarm, lateMillis) -> {
+        synchronized (fired) {
+            fired.add(alarm.label);
+            late.add(lateMillis);
+        }
+        latch.countDown();
+    });
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private List<String> fired() {
+        synchronized (fired) {
+            return new ArrayList<>(fired);
+        }
+    }
+
+    @Test
+    void firesInDeadlineOrderRegardlessOfInsertOrder() throws InterruptedException {
+        latch = new CountDownLatch(4);
+        long now = System.currentTimeMillis();
+        store.add(now + 120, "third");
+        store.add(now + 40, "first");
+        store.add(now + 200, "fourth");
+        store.add(now + 80, "second");
+        assertEquals(now + 40, store.nextFireMillis());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "second", "third", "fourth"), fired());
+        assertEquals(0, store.size());
+        assertEquals(Long.MAX_VALUE, store.nextFireMillis());
+    }
+
+    @Test
+    void equalDeadlinesFireInInsertOrder() throws InterruptedException {
+        latch = new CountDownLatch(3);
+        long at = System.currentTimeMillis() + 50;
+        store.add(at, "a");
+        store.add(at, "b");
+        store.add(at, "c");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b", "c"), fired());
+    }
+
+    @Test
+    void removedAlarmDoesNotFire() throws InterruptedException {
+        latch = new CountDownLatch(1);
+        long now = System.currentTimeMillis();
+        long gone = store.add(now + 30, "gone");
+        store.add(now + 100, "kept");
+        assertTrue(store.remove(gone));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("kept"), fired());
+    }
+
+    @Test
+    void overdueOneShotRingsOnceAndIsRemoved() throws InterruptedException {
+        latch = new CountDownLatch(1);
+        store.add(System.currentTimeMillis() - 60_000, "overdue");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(List.of("overdue"), fired());
+        assertTrue(late.get(0) >= 60_000);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void overdueRepeatingAlarmRingsOnceAndMovesToNextOccurrence() throws InterruptedException {
+        latch = new CountDownLatch(1);
+        long now = System.currentTimeMillis();
+        AlarmRule daily = AlarmRule.daily(LocalTime.of(6, 0), ZoneId.of("UTC"));
+        // Three days of missed occurrences
+        long id = store.add(now - TimeUnit.DAYS.toMillis(3), "daily", daily);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(List.of("daily"), fired());
+        AlarmStore.Alarm a = store.get(id);
+        assertSame(daily, a.rule());
+        long next = a.fireAtMillis();
+        assertTrue(next > now && next <= now + TimeUnit.DAYS.toMillis(1), "next occurrence " + next);
+        assertEquals(next, store.nextFireMillis());
+    }
+
+    @Test
+    void updateMovesTheDeadline() throws InterruptedException {
+        latch = new CountDownLatch(2);
+        long now = System.currentTimeMillis();
+        long a = store.add(now + 60_000, "a");
+        store.add(now + 100, "b");
+        assertTrue(store.update(a, null, now + 30));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b"), fired());
+    }
+}
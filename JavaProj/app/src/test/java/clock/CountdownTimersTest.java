@@ -0,0 +1,108 @@
+package clock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountdownTimersTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final TickScheduler scheduler = new TickScheduler(2);
+    // Fake monotonic clock; expiry tasks still run on the real scheduler
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile CountdownTimers.Countdown finishedCountdown;
+
+    private final CountdownTimers timers = new CountdownTimers(scheduler, new CountdownTimers.Listener() {
+        @Override
+        public void timersTicked() {
+        }
+
+        @Override
+        public void timerFinished(CountdownTimers.Countdown countdown) {
+            finishedCountdown = countdown;
+            finished.countDown();
+        }
+    }, now::get);
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void remainingIsDeadlineMinusNow() {
+        CountdownTimers.Countdown c = timers.start("tea", 10, TimeUnit.SECONDS);
+        assertEquals(10 * SECOND, c.remainingNanos(now.get()));
+        now.addAndGet(4 * SECOND);
+        assertEquals(6 * SECOND, c.remainingNanos(now.get()));
+        assertEquals(0.4, c.progress(now.get()), 1e-9);
+        now.addAndGet(60 * SECOND);
+        assertEquals(0, c.remainingNanos(now.get()));
+    }
+
+    @Test
+    void pauseFreezesAndResumeSetsAFreshDeadline() {
+        CountdownTimers.Countdown c = timers.start("tea", 10, TimeUnit.SECONDS);
+        now.addAndGet(3 * SECOND);
+        assertTrue(timers.pause(c.id));
+        assertFalse(timers.pause(c.id));
+        assertTrue(c.isPaused());
+        now.addAndGet(100 * SECOND);
+        assertEquals(7 * SECOND, c.remainingNanos(now.get()));
+
+        assertTrue(timers.resume(c.id));
+        assertFalse(timers.resume(c.id));
+        assertEquals(7 * SECOND, c.remainingNanos(now.get()));
+        now.addAndGet(2 * SECOND);
+        assertEquals(5 * SECOND, c.remainingNanos(now.get()));
+        assertEquals(0.5, c.progress(now.get()), 1e-9);
+    }
+
+    @Test
+    void restoreKeepsRemainingAndPausedState() {
+        CountdownTimers.Countdown paused = timers.restore("a", 60 * SECOND, 20 * SECOND, true);
+        CountdownTimers.Countdown running = timers.restore("b", 60 * SECOND, 90 * SECOND, false);
+        now.addAndGet(5 * SECOND);
+        assertEquals(20 * SECOND, paused.remainingNanos(now.get()));
+        // Clamped to the duration
+        assertEquals(55 * SECOND, running.remainingNanos(now.get()));
+    }
+
+    @Test
+    void cancelForgetsTheCountdown() {
+        CountdownTimers.Countdown c = timers.start("tea", 10, TimeUnit.SECONDS);
+        assertTrue(timers.cancel(c.id));
+        assertFalse(timers.cancel(c.id));
+        assertNull(timers.get(c.id));
+        assertEquals(0, timers.size());
+    }
+
+    @Test
+    void earlyWakeReArmsUntilTheDeadlineHasPassed() throws InterruptedException {
+        // The expiry task runs after 50 real ms, but the fake clock has not moved
+        CountdownTimers.Countdown c = timers.start("egg", 50, TimeUnit.MILLISECONDS);
+        assertFalse(finished.await(300, TimeUnit.MILLISECONDS));
+        assertSame(c, timers.get(c.id));
+
+        now.addAndGet(SECOND);
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertSame(c, finishedCountdown);
+        assertEquals(0, timers.size());
+    }
+
+    @Test
+    void nonPositiveDurationThrows() {
+        assertThrows(IllegalArgumentException.class, () -> timers.start("x", 0, TimeUnit.SECONDS));
+    }
+}
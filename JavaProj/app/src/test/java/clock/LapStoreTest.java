@@ -0,0 +1,85 @@
+package clock;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LapStoreTest {
+    @Test
+    void emptyStoreHasNoSplits() {
+        LapStore s = new LapStore();
+        assertEquals(0, s.size());
+        assertEquals(0, s.lastSplit());
+        assertEquals(0, s.minSplit());
+        assertEquals(0, s.maxSplit());
+        assertEquals(0, s.meanSplit());
+        assertEquals(-1, s.best());
+        assertEquals(-1, s.worst());
+    }
+
+    @Test
+    void splitsAreDifferencesOfMarks() {
+        LapStore s = new LapStore();
+        assertEquals(0, s.add(10));
+        assertEquals(1, s.add(25));
+        assertEquals(2, s.add(30));
+        assertEquals(25, s.mark(1));
+        assertEquals(10, s.split(0));
+        assertEquals(15, s.split(1));
+        assertEquals(5, s.split(2));
+        assertEquals(5, s.lastSplit());
+        assertEquals(5, s.minSplit());
+        assertEquals(15, s.maxSplit());
+        assertEquals(10, s.meanSplit());
+        assertEquals(2, s.best());
+        assertEquals(1, s.worst());
+    }
+
+    @Test
+    void lastSplitIsNotTheMinimum() {
+        LapStore s = new LapStore();
+        s.add(5);
+        s.add(25);
+        assertEquals(20, s.lastSplit());
+        assertEquals(5, s.minSplit());
+        assertEquals(0, s.best());
+    }
+
+    @Test
+    void tiesKeepTheFirstLap() {
+        LapStore s = new LapStore();
+        s.add(10);
+        s.add(20);
+        s.add(30);
+        assertEquals(0, s.best());
+        assertEquals(0, s.worst());
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        LapStore s = new LapStore();
+        for (int i = 1; i <= 1000; i++) s.add(i * 1000L + (i == 700 ? -500 : 0));
+        assertEquals(1000, s.size());
+        assertEquals(1000_000, s.mark(999));
+        assertEquals(699, s.best());
+        assertEquals(500, s.minSplit());
+        assertEquals(700, s.worst());
+        assertEquals(1500, s.maxSplit());
+    }
+
+    @Test
+    void clearResetsStatisticsAndCountsResets() {
+        LapStore s = new LapStore();
+        s.add(10);
+        s.add(15);
+        s.clear();
+        assertEquals(0, s.size());
+        assertEquals(1, s.resets());
+        assertEquals(-1, s.best());
+        assertEquals(0, s.minSplit());
+        s.add(40);
+        assertEquals(40, s.split(0));
+        assertEquals(40, s.minSplit());
+        assertEquals(0, s.best());
+    }
+}
@@ -0,0 +1,72 @@
+package clock;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    @Test
+    void smallValuesHaveExactBuckets() {
+        for (long v = 0; v < 16; v++) {
+            assertEquals(v, LatencyHistogram.index(v));
+            assertEquals(v, LatencyHistogram.upperBound((int) v));
+        }
+        assertEquals(16, LatencyHistogram.index(16));
+    }
+
+    @Test
+    void bucketsAreContiguousAndContainTheirValues() {
+        // Below the top buckets, whose upper bound is clamped to Long.MAX_VALUE
+        for (int i = 1; i < 900; i++) {
+            long lower = LatencyHistogram.upperBound(i - 1) + 1;
+            long upper = LatencyHistogram.upperBound(i);
+            assertTrue(upper >= lower, "bucket " + i);
+            assertEquals(i, LatencyHistogram.index(lower), "lower bound of bucket " + i);
+            assertEquals(i, LatencyHistogram.index(upper), "upper bound of bucket " + i);
+            // 16 sub-buckets per power of two: width at most 1/16 of the lower bound
+            if (lower >= 16) assertTrue(upper - lower + 1 <= lower / 16, "width of bucket " + i);
+        }
+    }
+
+    @Test
+    void everyValueFitsUnderItsBucketBound() {
+        long[] samples = {17, 31, 32, 1_000, 999_999, 1_000_000, 33_000_000, 1L << 40, (1L << 40) - 1,
+                Long.MAX_VALUE / 3, Long.MAX_VALUE - 1, Long.MAX_VALUE};
+        for (long v : samples) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.index(v));
+            assertTrue(upper >= v, "value " + v);
+            assertTrue(upper - v <= v / 16 || upper == Long.MAX_VALUE, "value " + v);
+        }
+    }
+
+    @Test
+    void percentilesAreWithinBucketResolution() {
+        LatencyHistogram h = new LatencyHistogram("test");
+        for (long v = 1; v <= 10_000; v++) h.record(v * 1000);
+        assertEquals(10_000, h.count());
+        assertEquals(10_000_000, h.maxNanos());
+        assertEquals(5_000_500, h.meanNanos());
+        assertWithin(5_000_000, h.percentileNanos(0.5));
+        assertWithin(9_900_000, h.percentileNanos(0.99));
+        assertEquals(10_000_000, h.percentileNanos(1.0));
+    }
+
+    @Test
+    void negativeCountsAsZeroAndResetEmpties() {
+        LatencyHistogram h = new LatencyHistogram("test");
+        h.record(-5);
+        assertEquals(1, h.count());
+        assertEquals(0, h.maxNanos());
+        assertEquals(0, h.percentileNanos(0.5));
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.percentileNanos(0.99));
+        assertEquals(0, h.meanNanos());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16,
+                "expected " + expected + " (+6%) but was " + actual);
+    }
+}
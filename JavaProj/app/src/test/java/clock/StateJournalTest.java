@@ -0,0 +1,198 @@
+package clock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StateJournalTest {
+    @TempDir
+    Path dir;
+
+    private Path journalFile() {
+        return dir.resolve("state.journal");
+    }
+
+    // A one-shot and a repeating alarm, then a timer; closed so everything is on disk
+    private long writeSample() throws IOException {
+        try (StateJournal j = StateJournal.open(dir)) {
+            j.alarmSet(1, 1000, "one", null);
+            j.alarmSet(2, 2000, "two", "daily;at=07:00;zone=UTC");
+            j.sync();
+            long afterAlarms = Files.size(journalFile());
+            j.timerSet(new StateJournal.TimerRecord(3, "tea", 180_000_000_000L, 5000, -1));
+            return afterAlarms;
+        }
+    }
+
+    private static byte[] frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(b)) {
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return b.toByteArray();
+    }
+
+    private void appendRaw(byte[] bytes) throws IOException {
+        Files.write(journalFile(), bytes, StandardOpenOption.APPEND);
+    }
+
+    @Test
+    void replaysEveryRecord() throws IOException {
+        writeSample();
+        try (StateJournal j = StateJournal.open(dir)) {
+            StateJournal.State s = j.recovered();
+            assertEquals(List.of(1L, 2L), List.copyOf(s.alarms.keySet()));
+            assertNull(s.alarms.get(1L).rule);
+            assertEquals("daily;at=07:00;zone=UTC", s.alarms.get(2L).rule);
+            assertEquals("tea", s.timers.get(3L).name);
+        }
+    }
+
+    @Test
+    void laterRecordsOverrideEarlierOnes() throws IOException {
+        try (StateJournal j = StateJournal.open(dir)) {
+            j.alarmSet(1, 1000, "one", null);
+            j.alarmCleared(1);
+            j.stopwatch(new StateJournal.StopwatchRecord(true, 0, 5));
+            j.lap(0, 1);
+            j.lap(1, 3);
+            j.stopwatch(new StateJournal.StopwatchRecord(false, 0, 0));
+        }
+        try (StateJournal j = StateJournal.open(dir)) {
+            StateJournal.State s = j.recovered();
+            assertEquals(0, s.alarms.size());
+            assertEquals(0, s.lapCount);
+        }
+    }
+
+    @Test
+    void tornTailIsCutOffAndAppendsFollowValidRecords() throws IOException {
+        long afterAlarms = writeSample();
+        long full = Files.size(journalFile());
+        byte[] bytes = Files.readAllBytes(journalFile());
+        Files.write(journalFile(), Arrays.copyOf(bytes, (int) full - 3));
+
+        try (StateJournal j = StateJournal.open(dir)) {
+            StateJournal.State s = j.recovered();
+            assertEquals(2, s.alarms.size());
+            assertEquals(0, s.timers.size());
+            assertEquals(afterAlarms, Files.size(journalFile()));
+            j.alarmCleared(1);
+        }
+        try (StateJournal j = StateJournal.open(dir)) {
+            assertEquals(List.of(2L), List.copyOf(j.recovered().alarms.keySet()));
+        }
+    }
+
+    @Test
+    void tornLengthHeaderIsCutOff() throws IOException {
+        long afterAlarms = writeSample();
+        byte[] bytes = Files.readAllBytes(journalFile());
+        Files.write(journalFile(), Arrays.copyOf(bytes, (int) afterAlarms + 5));
+        try (StateJournal j = StateJournal.open(dir)) {
+            assertEquals(2, j.recovered().alarms.size());
+            assertEquals(afterAlarms, Files.size(journalFile()));
+        }
+    }
+
+    @Test
+    void crcMismatchStopsReplay() throws IOException {
+        long afterAlarms = writeSample();
+        byte[] bytes = Files.readAllBytes(journalFile());
+        // Flip a payload byte of the timer record, behind its length and checksum
+        bytes[(int) afterAlarms + 12] ^= 0x40;
+        Files.write(journalFile(), bytes);
+        try (StateJournal j = StateJournal.open(dir)) {
+            StateJournal.State s = j.recovered();
+            assertEquals(2, s.alarms.size());
+            assertEquals(0, s.timers.size());
+            assertEquals(afterAlarms, Files.size(journalFile()));
+        }
+    }
+
+    @Test
+    void unknownRecordTypeStopsReplayBeforeIt() throws IOException {
+        writeSample();
+        long beforeUnknown = Files.size(journalFile());
+        appendRaw(frame(new byte[]{99, 1, 2, 3}));
+        // A valid record after it must not be applied either: its context is unknown
+        ByteArrayOutputStream clear = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(clear)) {
+            out.writeByte(2);
+            out.writeLong(1);
+        }
+        appendRaw(frame(clear.toByteArray()));
+
+        try (StateJournal j = StateJournal.open(dir)) {
+            StateJournal.State s = j.recovered();
+            assertEquals(2, s.alarms.size());
+            assertEquals(1, s.timers.size());
+            assertEquals(beforeUnknown, Files.size(journalFile()));
+        }
+    }
+
+    @Test
+    void compactionKeepsStateAndEmptiesJournal() throws IOException {
+        writeSample();
+        try (StateJournal j = StateJournal.open(dir)) {
+            StateJournal.State s = j.recovered();
+            s.alarms.remove(1L);
+            j.compact(() -> s);
+            assertEquals(8, Files.size(journalFile()));
+            j.alarmSet(4, 4000, "four", null);
+        }
+        try (StateJournal j = StateJournal.open(dir)) {
+            StateJournal.State s = j.recovered();
+            assertEquals(List.of(2L, 4L), List.copyOf(s.alarms.keySet()));
+            assertEquals(1, s.timers.size());
+        }
+    }
+
+    @Test
+    void compactLaterRunsOnTheJournalThread() throws IOException {
+        try (StateJournal j = StateJournal.open(dir)) {
+            j.alarmSet(1, 1000, "one", null);
+            j.alarmSet(2, 2000, "two", null);
+            StateJournal.State s = new StateJournal.State();
+            s.alarms.put(2L, new StateJournal.AlarmRecord(2, 2000, "two", null));
+            String[] thread = new String[1];
+            j.compactLater(() -> {
+                thread[0] = Thread.currentThread().getName();
+                return s;
+            });
+            // Queued behind the compaction on the same thread
+            j.sync();
+            assertEquals("clock-journal", thread[0]);
+            assertEquals(8, Files.size(journalFile()));
+        }
+        try (StateJournal j = StateJournal.open(dir)) {
+            assertEquals(List.of(2L), List.copyOf(j.recovered().alarms.keySet()));
+        }
+    }
+
+    @Test
+    void foreignFileIsRejected() throws IOException {
+        Files.write(journalFile(), "NOTAJOURNAL".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> StateJournal.open(dir));
+    }
+}
@@ -0,0 +1,88 @@
+package clock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StopwatchCoreTest {
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final StopwatchCore sw = new StopwatchCore(now::get);
+
+    @Test
+    void elapsedAccumulatesAcrossPauseAndResume() {
+        assertEquals(0, sw.elapsedNanos());
+        assertTrue(sw.start());
+        assertFalse(sw.start());
+        now.addAndGet(50);
+        assertEquals(50, sw.elapsedNanos());
+        assertTrue(sw.pause());
+        assertFalse(sw.pause());
+        now.addAndGet(10_000);
+        assertEquals(50, sw.elapsedNanos());
+        assertTrue(sw.start());
+        now.addAndGet(20);
+        assertEquals(70, sw.elapsedNanos());
+        assertTrue(sw.isRunning());
+    }
+
+    @Test
+    void lapsRecordElapsedOnlyWhileRunning() {
+        assertEquals(-1, sw.lap());
+        sw.start();
+        now.addAndGet(30);
+        assertEquals(30, sw.lap());
+        now.addAndGet(12);
+        assertEquals(42, sw.lap());
+        StopwatchCore.Snapshot s = sw.snapshot();
+        assertEquals(2, s.laps);
+        assertEquals(42, s.lastLap);
+        sw.pause();
+        assertEquals(-1, sw.lap());
+        assertEquals(2, sw.snapshot().laps);
+    }
+
+    @Test
+    void resetClearsEverything() {
+        sw.start();
+        now.addAndGet(30);
+        sw.lap();
+        sw.reset();
+        StopwatchCore.Snapshot s = sw.snapshot();
+        assertFalse(s.running);
+        assertEquals(0, s.accumulated);
+        assertEquals(0, s.laps);
+        now.addAndGet(30);
+        assertEquals(0, sw.elapsedNanos());
+    }
+
+    @Test
+    void restoredRunningStopwatchContinuesFromNow() {
+        sw.restore(true, 500, 3, 400);
+        now.addAndGet(25);
+        assertEquals(525, sw.elapsedNanos());
+        assertEquals(3, sw.snapshot().laps);
+        sw.restore(false, 500, 0, 0);
+        now.addAndGet(25);
+        assertEquals(500, sw.elapsedNanos());
+        assertFalse(sw.isRunning());
+    }
+
+    @Test
+    void concurrentLapsAreAllCounted() throws InterruptedException {
+        StopwatchCore real = new StopwatchCore();
+        real.start();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int n = 0; n < 10_000; n++) real.lap();
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(40_000, real.snapshot().laps);
+    }
+}
@@ -0,0 +1,62 @@
+package clock;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimeFormatTest {
+    private static String clock(int h, int m, int s) {
+        char[] buf = new char[TimeFormat.MAX_LENGTH];
+        return new String(buf, 0, TimeFormat.clock(h, m, s, buf));
+    }
+
+    @Test
+    void stopwatch() {
+        assertEquals("00:00.00", TimeFormat.stopwatch(0));
+        assertEquals("00:00.00", TimeFormat.stopwatch(9));
+        assertEquals("00:01.23", TimeFormat.stopwatch(1_234));
+        assertEquals("01:01.99", TimeFormat.stopwatch(61_999));
+        assertEquals("59:59.99", TimeFormat.stopwatch(3_599_999));
+        assertEquals("00:00.00", TimeFormat.stopwatch(-500));
+    }
+
+    @Test
+    void minutesWidenPastNinetyNine() {
+        assertEquals("99:59.00", TimeFormat.stopwatch(5_999_000));
+        assertEquals("100:00.00", TimeFormat.stopwatch(6_000_000));
+        assertEquals("1000:00", TimeFormat.seconds(60_000));
+    }
+
+    @Test
+    void seconds() {
+        assertEquals("00:00", TimeFormat.seconds(0));
+        assertEquals("00:59", TimeFormat.seconds(59));
+        assertEquals("01:00", TimeFormat.seconds(60));
+        assertEquals("60:00", TimeFormat.seconds(3600));
+        assertEquals("00:00", TimeFormat.seconds(-1));
+    }
+
+    @Test
+    void twelveHourClock() {
+        assertEquals("12:00:00 AM", clock(0, 0, 0));
+        assertEquals("01:05:09 AM", clock(1, 5, 9));
+        assertEquals("11:59:59 AM", clock(11, 59, 59));
+        assertEquals("12:00:00 PM", clock(12, 0, 0));
+        assertEquals("11:59:59 PM", clock(23, 59, 59));
+    }
+
+    @Test
+    void maxLengthIsEnough() {
+        char[] buf = new char[TimeFormat.MAX_LENGTH];
+        assertEquals(String.valueOf(Long.MAX_VALUE / 60000).length() + 6, TimeFormat.stopwatch(Long.MAX_VALUE, buf));
+        TimeFormat.seconds(Long.MAX_VALUE, buf);
+    }
+
+    @Test
+    void writesOnlyItsOwnChars() {
+        char[] buf = "xxxxxxxxxxxxxxxxxxxxxxxx".toCharArray();
+        int n = TimeFormat.seconds(75, buf);
+        assertEquals("01:15xxxxxxxxxxxxxxxxxxx", new String(buf));
+        assertEquals(5, n);
+    }
+}
@@ -0,0 +1,105 @@
+package clock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AudioOpenBenchmark
+ * What a cold playSound pays before any audio is heard: parsing the file
+ * with AudioSystem.getAudioInputStream, decoding it to PCM, and Clip.open on
+ * the decoded data. The sound is -Dclock.bench.sound, or a generated
+ * one-second 44.1 kHz stereo WAV. clipOpen needs an audio device; exclude
+ * it with -e clipOpen on machines without one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AudioOpenBenchmark {
+    private File sound;
+    private boolean generated;
+    private SoundCache.Pcm pcm;
+
+    /** Only clipOpen touches the audio device. */
+    @State(Scope.Thread)
+    public static class Device {
+        Clip clip;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            clip = AudioSystem.getClip();
+        }
+
+        @TearDown(Level.Invocation)
+        public void closeClip() {
+            clip.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        String path = System.getProperty("clock.bench.sound");
+        if (path != null) {
+            sound = new File(path);
+        } else {
+            sound = File.createTempFile("clock-bench", ".wav");
+            generated = true;
+            byte[] data = new byte[44100 * 4];
+            for (int i = 0; i < data.length; i += 4) {
+                short s = (short) (Math.sin(i / 4 * 2 * Math.PI * 440 / 44100) * 8000);
+                data[i] = data[i + 2] = (byte) s;
+                data[i + 1] = data[i + 3] = (byte) (s >> 8);
+            }
+            try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(data), AudioMixer.FORMAT, 44100)) {
+                AudioSystem.write(in, AudioFileFormat.Type.WAVE, sound);
+            }
+        }
+        pcm = SoundCache.decode(sound, sound.getPath(), sound.lastModified(), null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (generated) Files.deleteIfExists(sound.toPath());
+    }
+
+    @Benchmark
+    public AudioFormat getAudioInputStream() throws Exception {
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(sound)) {
+            return in.getFormat();
+        }
+    }
+
+    @Benchmark
+    public SoundCache.Pcm decode() throws Exception {
+        return SoundCache.decode(sound, sound.getPath(), sound.lastModified(), AudioMixer.FORMAT);
+    }
+
+    @Benchmark
+    public Clip clipOpen(Device device) throws Exception {
+        device.clip.open(pcm.format, pcm.data, 0, pcm.length);
+        return device.clip;
+    }
+}
@@ -0,0 +1,138 @@
+package clock;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ControlLoadTest
+ * Load client for the ControlServer API. Each of --clients workers runs on
+ * its own virtual thread and cycles through the given requests for
+ * --seconds, then throughput and latency percentiles are printed. Exits 1
+ * when the rate falls below --min-rps or any request failed:
+ *
+ *   java -cp bench/target/benchmarks.jar clock.ControlLoadTest --port 8765 --clients 64 --seconds 10 \
+ *       "GET /stopwatch" "GET /timers" "POST /stopwatch/lap"
+ */
+public final class ControlLoadTest {
+    private static final String[] DEFAULT_REQUESTS = {"GET /stopwatch", "GET /timers", "GET /alarms"};
+
+    private ControlLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.getInteger("clock.control.port", 8765);
+        int clients = 64;
+        int seconds = 10;
+        long minRps = -1;
+        List<String> specs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[++i]);
+                    break;
+                case "--min-rps":
+                    minRps = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        System.err.println("usage: ControlLoadTest [--port n] [--clients n] [--seconds n] [--min-rps n] [\"METHOD /path\" ...]");
+                        System.exit(2);
+                    }
+                    specs.add(args[i]);
+            }
+        }
+        if (specs.isEmpty()) specs.addAll(Arrays.asList(DEFAULT_REQUESTS));
+
+        HttpRequest[] requests = new HttpRequest[specs.size()];
+        for (int i = 0; i < requests.length; i++) {
+            String[] mp = specs.get(i).trim().split("\\s+", 2);
+            if (mp.length < 2) throw new IllegalArgumentException("request must be \"METHOD /path\": " + specs.get(i));
+            requests[i] = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + mp[1]))
+                    .method(mp[0], HttpRequest.BodyPublishers.noBody())
+                    .timeout(Duration.ofSeconds(5))
+                    .build();
+        }
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        AtomicLong failures = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long started = System.nanoTime();
+        List<Future<long[]>> workers = new ArrayList<>();
+        ExecutorService pool = ControlServer.virtualThreads("clock-load");
+        for (int w = 0; w < clients; w++) {
+            int offset = w;
+            workers.add(pool.submit(() -> run(client, requests, offset, deadline, failures)));
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> f : workers) {
+            long[] part = f.get();
+            int at = all.length;
+            all = Arrays.copyOf(all, at + part.length);
+            System.arraycopy(part, 0, all, at, part.length);
+        }
+        long elapsed = System.nanoTime() - started;
+        pool.shutdown();
+
+        Arrays.sort(all);
+        long rps = all.length * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed);
+        System.out.println(all.length + " requests from " + clients + " clients in "
+                + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms: " + rps + " req/s, " + failures.get() + " failed");
+        if (all.length > 0) {
+            System.out.printf("latency: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                    percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                    percentile(all, 0.999), all[all.length - 1] / 1e6);
+        }
+        if (failures.get() > 0 || (minRps >= 0 && rps < minRps)) {
+            System.err.println("Load test failed" + (minRps >= 0 ? " (minimum " + minRps + " req/s)" : ""));
+            System.exit(1);
+        }
+    }
+
+    // Latencies in nanoseconds of every successful request this worker made
+    private static long[] run(HttpClient client, HttpRequest[] requests, int offset, long deadline, AtomicLong failures) {
+        long[] latencies = new long[1024];
+        int n = 0;
+        for (int i = offset; System.nanoTime() - deadline < 0; i++) {
+            long t0 = System.nanoTime();
+            try {
+                HttpResponse<Void> r = client.send(requests[i % requests.length], HttpResponse.BodyHandlers.discarding());
+                if (r.statusCode() != 200) {
+                    failures.incrementAndGet();
+                    continue;
+                }
+            } catch (IOException ex) {
+                failures.incrementAndGet();
+                continue;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (n == latencies.length) latencies = Arrays.copyOf(latencies, n * 2);
+            latencies[n++] = System.nanoTime() - t0;
+        }
+        return Arrays.copyOf(latencies, n);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int i = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+}
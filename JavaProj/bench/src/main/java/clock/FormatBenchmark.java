@@ -0,0 +1,86 @@
+package clock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FormatBenchmark
+ * The per-frame text paths: stopwatch and timer strings through TimeFormat
+ * against the String.format they replaced, and the clock face through
+ * TimeFormat.clock against the DateTimeFormatter path, which the date
+ * labels still take.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+    private static final DateTimeFormatter CLOCK_FMT = DateTimeFormatter.ofPattern("hh:mm:ss a", Locale.ENGLISH);
+    private static final DateTimeFormatter DAY_FMT = DateTimeFormatter.ofPattern("EEE");
+
+    private final char[] buf = new char[TimeFormat.MAX_LENGTH];
+    private long millis;
+    private LocalDateTime time;
+
+    @Setup
+    public void setup() {
+        millis = 754_321;
+        time = LocalDateTime.of(2024, 3, 9, 21, 7, 45);
+    }
+
+    @Benchmark
+    public int formatStopwatchIntoBuffer() {
+        return TimeFormat.stopwatch(millis, buf);
+    }
+
+    @Benchmark
+    public String formatStopwatch() {
+        return TimeFormat.stopwatch(millis);
+    }
+
+    @Benchmark
+    public String formatStopwatchStringFormat() {
+        long ms = millis;
+        return String.format("%02d:%02d.%02d", ms / 60000, ms / 1000 % 60, ms % 1000 / 10);
+    }
+
+    @Benchmark
+    public int formatSecondsIntoBuffer() {
+        return TimeFormat.seconds(millis / 1000, buf);
+    }
+
+    @Benchmark
+    public String formatSeconds() {
+        return TimeFormat.seconds(millis / 1000);
+    }
+
+    @Benchmark
+    public int clockIntoBuffer() {
+        return TimeFormat.clock(time.getHour(), time.getMinute(), time.getSecond(), buf);
+    }
+
+    @Benchmark
+    public String clockDateTimeFormatter() {
+        return time.format(CLOCK_FMT);
+    }
+
+    @Benchmark
+    public String dayLabelDateTimeFormatter() {
+        return time.format(DAY_FMT).toUpperCase();
+    }
+}
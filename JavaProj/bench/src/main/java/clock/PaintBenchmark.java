@@ -0,0 +1,109 @@
+package clock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.Icon;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PaintBenchmark
+ * RoundedPanel.paintComponent and the vector icons rendered into an
+ * offscreen ARGB image, the way the nav bar and stopwatch buttons repaint on
+ * hover, with and without the ShapeCache tiles, at 100% and 150% scale.
+ * Runs headless.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark {
+    private static final Color FG = new Color(220, 220, 220);
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    @Param({"1.0", "1.5"})
+    public double scale;
+
+    private BufferedImage image;
+    private Graphics2D g;
+    private ElegantMinimalClockDark.RoundedPanel panel;
+    private Icon nav;
+    private Icon play;
+    private Icon stop;
+    private Icon flag;
+    private Icon reset;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ShapeCache.setEnabled(cached);
+        image = new BufferedImage((int) (360 * scale), (int) (120 * scale), BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+        g.scale(scale, scale);
+        panel = new ElegantMinimalClockDark.RoundedPanel(new Color(30, 30, 30), 30);
+        panel.setSize(360, 120);
+        nav = new ElegantMinimalClockDark.NavIcon(ElegantMinimalClockDark.NavIcon.Type.ALARM, 24, FG);
+        play = new ElegantMinimalClockDark.PlayIcon(14, FG);
+        stop = new ElegantMinimalClockDark.StopIcon(12, FG);
+        flag = new ElegantMinimalClockDark.FlagIcon(14, FG);
+        reset = new ElegantMinimalClockDark.ResetIcon(14, FG);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage roundedPanel() {
+        panel.paintComponent(g);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage navIcon() {
+        nav.paintIcon(null, g, 4, 4);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage playIcon() {
+        play.paintIcon(null, g, 4, 4);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage stopIcon() {
+        stop.paintIcon(null, g, 4, 4);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage flagIcon() {
+        flag.paintIcon(null, g, 4, 4);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage resetIcon() {
+        reset.paintIcon(null, g, 4, 4);
+        return image;
+    }
+}
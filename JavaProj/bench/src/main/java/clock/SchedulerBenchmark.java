@@ -0,0 +1,62 @@
+package clock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SchedulerBenchmark
+ * TickScheduler throughput: inserting into and removing from the deadline
+ * queue (schedule then cancel, as countdown pause and re-arm do), and full
+ * insert-to-fire round trips of a batch of due tasks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+    private static final int BATCH = 1000;
+
+    private TickScheduler scheduler;
+    private final AtomicInteger fired = new AtomicInteger();
+    private final Runnable task = fired::incrementAndGet;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scheduler = new TickScheduler(2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public TickScheduler.Handle insertCancel() {
+        return TickScheduler.cancel(scheduler.schedule(task, 1, TimeUnit.HOURS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int insertFire() {
+        int target = fired.get() + BATCH;
+        for (int i = 0; i < BATCH; i++) scheduler.schedule(task, 0, TimeUnit.NANOSECONDS);
+        while (fired.get() - target < 0) Thread.onSpinWait();
+        return target;
+    }
+}
@@ -0,0 +1,30 @@
+#!/bin/sh
+# Builds app/target/clock.jar with Maven and records a class-data-sharing
+# archive of everything loaded up to the first painted frame. Launch with
+#   java -XX:SharedArchiveFile=app/target/clock.jsa -jar app/target/clock.jar
+# and check the gain with
+#   java -cp app/target/clock.jar clock.StartupBenchmark --cp app/target/clock.jar --cds app/target/clock.jsa
+# or let Maven do both: mvn verify -Pcds,startup-check (the cds profile runs
+# this script with --no-build after packaging).
+# CDS only archives classes loaded from jars, and dynamic archiving with
+# -XX:ArchiveClassesAtExit needs JDK 13+. Without a display the archive covers
+# the headless engine only. The training run uses an empty temporary state
+# directory, never the user's saved alarms and timers.
+set -e
+cd "$(dirname "$0")"
+TARGET=app/target
+BIN=${JAVA_HOME:+$JAVA_HOME/bin/}
+STATE=$(mktemp -d)
+trap 'rm -rf "$STATE"' EXIT
+
+[ "$1" = "--no-build" ] || mvn -B -q -pl app -am package
+rm -f "$TARGET/clock.jsa"
+
+if [ -n "$DISPLAY" ] || [ "$(uname)" != "Linux" ]; then
+    "${BIN}java" -XX:ArchiveClassesAtExit="$TARGET/clock.jsa" -Dclock.state.dir="$STATE" \
+        -Dclock.startup.exit=true -jar "$TARGET/clock.jar"
+else
+    echo quit | "${BIN}java" -XX:ArchiveClassesAtExit="$TARGET/clock.jsa" -Dclock.state.dir="$STATE" \
+        -jar "$TARGET/clock.jar" --headless > /dev/null
+fi
+echo "Wrote $TARGET/clock.jsa"